@@ -0,0 +1,39 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.MovieInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Flux;
+
+/**
+ * Creates the indexes declared on the documents before the application takes traffic.
+ * Spring Data's auto-index-creation is off by default and, on the reactive template, runs
+ * asynchronously the first time an entity is seen, so the indexes are ensured here instead.
+ */
+@Configuration
+@Slf4j
+public class MongoIndexConfig {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        var indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        var indexOps = reactiveMongoTemplate.indexOps(MovieInfo.class);
+
+        Flux.fromIterable(indexResolver.resolveIndexFor(MovieInfo.class))
+                .concatMap(indexOps::ensureIndex)
+                .doOnNext(index -> log.info("Ensured index {} on {}", index, reactiveMongoTemplate.getCollectionName(MovieInfo.class)))
+                .blockLast();
+    }
+}
@@ -0,0 +1,115 @@
+package com.reactivespring.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.function.Supplier;
+
+/**
+ * Gives every repository call made while serving a traced request a MongoDB client span.
+ * Brave's MongoDB instrumentation only covers the synchronous driver, whose command listener finds the
+ * span on the calling thread; the reactive driver runs commands elsewhere, so the span is started here
+ * from the trace in the Reactor Context instead.
+ */
+@Configuration
+public class RepositoryTracingConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryTracingBeanPostProcessor(ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(new TracingInterceptor(tracer::getObject,
+                                            repositoryInformation.getRepositoryInterface().getSimpleName(),
+                                            collectionName(factory, repositoryInformation.getDomainType())))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static String collectionName(RepositoryFactorySupport factory, Class<?> domainType) {
+        if (factory instanceof ReactiveMongoRepositoryFactory) {
+            return ((ReactiveMongoRepositoryFactory) factory).getEntityInformation(domainType).getCollectionName();
+        }
+        return domainType.getSimpleName();
+    }
+
+    static class TracingInterceptor implements MethodInterceptor {
+
+        private final Supplier<Tracer> tracer;
+        private final String repository;
+        private final String collection;
+
+        TracingInterceptor(Supplier<Tracer> tracer, String repository, String collection) {
+            this.tracer = tracer;
+            this.repository = repository;
+            this.collection = collection;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            // assembling the publisher is cheap, the query only runs once it is subscribed to
+            Object result = invocation.proceed();
+            String method = invocation.getMethod().getName();
+            if (result instanceof Mono) {
+                return traced((Mono<?>) result, method);
+            }
+            if (result instanceof Flux) {
+                return traced((Flux<?>) result, method);
+            }
+            return result;
+        }
+
+        private <T> Mono<T> traced(Mono<T> query, String method) {
+            return Mono.deferContextual(context -> {
+                if (!context.hasKey(TraceContext.class)) {
+                    return query;
+                }
+                Span span = start(context, method);
+                return query.contextWrite(c -> c.put(TraceContext.class, span.context()))
+                        .doOnError(span::error)
+                        .doFinally(signalType -> span.end());
+            });
+        }
+
+        private <T> Flux<T> traced(Flux<T> query, String method) {
+            return Flux.deferContextual(context -> {
+                if (!context.hasKey(TraceContext.class)) {
+                    return query;
+                }
+                Span span = start(context, method);
+                return query.contextWrite(c -> c.put(TraceContext.class, span.context()))
+                        .doOnError(span::error)
+                        .doFinally(signalType -> span.end());
+            });
+        }
+
+        private Span start(ContextView context, String method) {
+            return tracer.get().spanBuilder()
+                    .setParent(context.get(TraceContext.class))
+                    .name(method)
+                    .kind(Span.Kind.CLIENT)
+                    .remoteServiceName("mongodb")
+                    .tag("mongodb.collection", collection)
+                    .tag("spring.data.repository", repository)
+                    .start();
+        }
+    }
+}
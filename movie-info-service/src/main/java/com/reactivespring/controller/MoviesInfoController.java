@@ -2,39 +2,74 @@ package com.reactivespring.controller;
 
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoIngestResult;
 import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.service.MovieInfoEventService;
+import com.reactivespring.service.MovieInfoIngestService;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.service.MovieInfoStreamService;
+import com.reactivespring.util.ContinuationToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import javax.validation.Valid;
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1")
 public class MoviesInfoController {
 
+    static final int MAX_PAGE_SIZE = 1000;
 
     @Autowired
     private MovieInfoService movieInfoService;
 
-    Sinks.Many<MovieInfo> moviesInfoSink = Sinks.many().replay().all();
+    @Autowired
+    private MovieInfoEventService movieInfoEventService;
+
+    @Autowired
+    private MovieInfoStreamService movieInfoStreamService;
 
+    @Autowired
+    private MovieInfoIngestService movieInfoIngestService;
+
+    @GetMapping(value = "/movieInfos/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieInfoEvent>> streamMovieInfoEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        Flux<ServerSentEvent<MovieInfoEvent>> events = movieInfoEventService.events(lastEventId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(movieInfoEventService.lastEventId(event))
+                        .event(event.getType().name())
+                        .build());
+        // keeps idle connections from being closed by intermediaries and client read timeouts
+        Flux<ServerSentEvent<MovieInfoEvent>> keepAlive = Flux.interval(Duration.ofSeconds(15))
+                .map(tick -> ServerSentEvent.<MovieInfoEvent>builder().comment("keep-alive").build());
+        return Flux.merge(events, keepAlive);
+    }
 
+    /**
+     * Movie infos as they are added. With ?after=<movieInfoId> every movie info stored after that one is replayed
+     * first, which only works for ids that increase over time such as server-generated ObjectIds. Client-chosen ids
+     * like "abc" don't sort by insertion, so movie infos added around them may be skipped or replayed.
+     */
     @GetMapping(value = "/movieInfos/stream", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Flux<MovieInfo> streamMovieInfo(){
-        return moviesInfoSink.asFlux();
+    public Flux<MovieInfo> streamMovieInfo(@RequestParam(value = "after", required = false) String afterMovieInfoId){
+        return movieInfoStreamService.stream(afterMovieInfoId);
     }
     @PostMapping("/movieInfos")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo){
         return movieInfoService.addMovieInfo(movieInfo)
-                .doOnNext(savedMovieInfo -> moviesInfoSink.tryEmitNext(savedMovieInfo));
+                .doOnNext(movieInfoStreamService::publish);
     }
 
 
@@ -47,6 +82,50 @@ public class MoviesInfoController {
         return movieInfoService.getAllMovieInfos();
     }
 
+    @GetMapping(value = "/movieInfos", params = "limit")
+    public Mono<ResponseEntity<List<MovieInfo>>> getMovieInfosPage(@RequestParam(value = "year", required = false) Integer year,
+                                                                   @RequestParam(value = "after", required = false) String continuationToken,
+                                                                   @RequestParam("limit") int limit){
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String afterMovieInfoId = continuationToken == null ? null : ContinuationToken.decode(continuationToken);
+
+        return movieInfoService.getMovieInfos(year, afterMovieInfoId, pageSize)
+                .collectList()
+                .map(page -> {
+                    var response = ResponseEntity.ok();
+                    // a short page is the last one
+                    if(page.size() == pageSize){
+                        response.header(ContinuationToken.HEADER,
+                                ContinuationToken.encode(page.get(page.size() - 1).getMovieInfoId()));
+                    }
+                    return response.body(page);
+                });
+    }
+
+    @GetMapping(value = "/movieInfos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieInfo> streamAllMovieInfos(@RequestParam(value = "year", required = false) Integer year){
+        // written as the Mongo cursor yields documents, batches are only fetched as the client keeps up
+        if(year != null){
+            return movieInfoService.getMovieInfoByYear(year);
+        }
+        return movieInfoService.getAllMovieInfos();
+    }
+
+    @PostMapping("/movieInfos/bulk")
+    public Flux<MovieInfo> getMovieInfosByIds(@RequestBody List<String> ids){
+        return movieInfoService.getMovieInfosByIds(ids);
+    }
+
+    /**
+     * Upserts a catalog load of NDJSON movie infos, one per line. events (EACH, COALESCE or NONE) overrides
+     * movieInfo.ingest.events for this load.
+     */
+    @PostMapping("/movieInfos/ingest")
+    public Mono<MovieInfoIngestResult> ingestMovieInfos(ServerHttpRequest request,
+                                                        @RequestParam(value = "events", required = false) MovieInfoIngestService.Events events){
+        return movieInfoIngestService.ingest(request.getBody(), events);
+    }
+
     @GetMapping("/movieInfos/{id}")
     public Mono<ResponseEntity<MovieInfo>> getMovieInfo(@PathVariable String id){
         return movieInfoService.getMovieInfo(id)
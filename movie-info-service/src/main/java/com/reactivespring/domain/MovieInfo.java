@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotBlank;
@@ -17,12 +19,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+// pages of a year are sorted by _id, it also serves lookups by year alone, so there is no separate single-field index
+@CompoundIndex(name = "year_movieInfoId", def = "{'year': 1, '_id': 1}")
 public class MovieInfo {
 
     @Id
     private String movieInfoId;
 
     @NotBlank(message = "movieInfo.name must be present")
+    @Indexed(unique = true)
     private String name;
 
     @NotNull
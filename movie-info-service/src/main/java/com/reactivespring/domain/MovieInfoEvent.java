@@ -0,0 +1,17 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoEvent {
+
+    private Long eventId;
+    private MovieInfoEventType type;
+    private String movieInfoId;
+    // null for DELETED and RESET events
+    private MovieInfo movieInfo;
+}
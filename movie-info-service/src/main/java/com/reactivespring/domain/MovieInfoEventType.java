@@ -0,0 +1,9 @@
+package com.reactivespring.domain;
+
+public enum MovieInfoEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // the requested Last-Event-ID is no longer retained or from another process; subscribers must drop everything they hold
+    RESET
+}
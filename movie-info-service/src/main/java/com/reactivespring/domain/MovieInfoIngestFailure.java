@@ -0,0 +1,18 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A line of a bulk ingest that was not stored, numbered from 1. movieInfoId is null when the line didn't parse.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoIngestFailure {
+
+    private long line;
+    private String movieInfoId;
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingest. Only the first failures are listed, failed counts them all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoIngestResult {
+
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<MovieInfoIngestFailure> failures = new ArrayList<>();
+    private boolean failuresTruncated;
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class InvalidContinuationTokenException extends RuntimeException {
+
+    public InvalidContinuationTokenException(String token) {
+        super("Invalid continuation token : " + token);
+    }
+}
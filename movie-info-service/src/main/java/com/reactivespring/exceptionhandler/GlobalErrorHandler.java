@@ -1,8 +1,10 @@
 package com.reactivespring.exceptionhandler;
 
 
+import com.reactivespring.exception.InvalidContinuationTokenException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -27,4 +29,16 @@ public class GlobalErrorHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<String> handleDuplicateKey(DuplicateKeyException ex){
+        log.error("Exception Caught in handleDuplicateKey : {} ", ex.getMessage(), ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("movieInfo.name must be unique");
+    }
+
+    @ExceptionHandler(InvalidContinuationTokenException.class)
+    public ResponseEntity<String> handleInvalidContinuationToken(InvalidContinuationTokenException ex){
+        log.error("Exception Caught in handleInvalidContinuationToken : {} ", ex.getMessage(), ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
 }
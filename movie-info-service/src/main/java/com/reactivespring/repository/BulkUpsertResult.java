@@ -0,0 +1,19 @@
+package com.reactivespring.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of {@link MovieInfoRepositoryCustom#upsertMovieInfos}, by index of the movie info in the written list.
+ * Indexes in neither inserted nor errors replaced an existing document.
+ */
+@Data
+@AllArgsConstructor
+public class BulkUpsertResult {
+
+    private Set<Integer> inserted;
+    private Map<Integer, String> errors;
+}
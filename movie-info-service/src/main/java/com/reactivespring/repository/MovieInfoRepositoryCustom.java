@@ -0,0 +1,21 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface MovieInfoRepositoryCustom {
+
+    /**
+     * Sets the non-null fields of movieInfo on the stored document and returns the updated document,
+     * or empty when there is no MovieInfo with the given id.
+     */
+    Mono<MovieInfo> updateMovieInfo(String id, MovieInfo movieInfo);
+
+    /**
+     * Replaces or inserts each of movieInfos by id with a single unordered bulkWrite, so that a failing document
+     * doesn't stop the ones after it. Movie infos without an id are given a new one.
+     */
+    Mono<BulkUpsertResult> upsertMovieInfos(List<MovieInfo> movieInfos);
+}
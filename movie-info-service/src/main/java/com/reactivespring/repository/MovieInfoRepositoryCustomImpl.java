@@ -0,0 +1,72 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<MovieInfo> updateMovieInfo(String id, MovieInfo movieInfo) {
+        var update = new Update();
+        if(movieInfo.getName() != null) update.set("name", movieInfo.getName());
+        if(movieInfo.getYear() != null) update.set("year", movieInfo.getYear());
+        if(movieInfo.getCast() != null) update.set("cast", movieInfo.getCast());
+        if(movieInfo.getReleaseDate() != null) update.set("releaseDate", movieInfo.getReleaseDate());
+
+        var byId = query(where("movieInfoId").is(id));
+        if(update.getUpdateObject().isEmpty()){
+            // an empty update document would replace the stored one
+            return reactiveMongoTemplate.findOne(byId, MovieInfo.class);
+        }
+        return reactiveMongoTemplate.findAndModify(byId, update,
+                FindAndModifyOptions.options().returnNew(true), MovieInfo.class);
+    }
+
+    @Override
+    public Mono<BulkUpsertResult> upsertMovieInfos(List<MovieInfo> movieInfos) {
+        List<WriteModel<Document>> replacements = movieInfos.stream()
+                .map(movieInfo -> {
+                    if(movieInfo.getMovieInfoId() == null) movieInfo.setMovieInfoId(new ObjectId().toHexString());
+                    var document = new Document();
+                    reactiveMongoTemplate.getConverter().write(movieInfo, document);
+                    return new ReplaceOneModel<>(new Document("_id", document.get("_id")), document,
+                            new ReplaceOptions().upsert(true));
+                })
+                .collect(Collectors.toList());
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(replacements, new BulkWriteOptions().ordered(false))))
+                .map(result -> new BulkUpsertResult(upserted(result), Map.of()))
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(new BulkUpsertResult(upserted(ex.getWriteResult()),
+                        ex.getWriteErrors().stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)))));
+    }
+
+    private static Set<Integer> upserted(BulkWriteResult result) {
+        return result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,107 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoEventType;
+import com.reactivespring.util.SerializedEmitter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class MovieInfoEventService {
+
+    private static final char EPOCH_SEPARATOR = ':';
+
+    private final int historySize;
+
+    // sequences restart with every process, so event ids are only comparable within one epoch
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final Sinks.Many<MovieInfoEvent> eventSink;
+
+    private final SerializedEmitter<MovieInfoEvent> emitter;
+
+    // only written while the emitter drains, so ids reach the sink in order
+    private volatile long lastEventId = 0;
+
+    public MovieInfoEventService(MeterRegistry meterRegistry,
+                                 @Value("${movieInfo.events.historySize:1000}") int historySize) {
+        this.historySize = historySize;
+        this.eventSink = Sinks.many().replay().limit(historySize);
+        this.emitter = new SerializedEmitter<>("movieInfoEvents", meterRegistry, List.of(eventSink));
+    }
+
+    public void movieInfoCreated(MovieInfo movieInfo) {
+        publish(MovieInfoEventType.CREATED, movieInfo.getMovieInfoId(), movieInfo);
+    }
+
+    public void movieInfoUpdated(MovieInfo movieInfo) {
+        publish(MovieInfoEventType.UPDATED, movieInfo.getMovieInfoId(), movieInfo);
+    }
+
+    public void movieInfoDeleted(String movieInfoId) {
+        publish(MovieInfoEventType.DELETED, movieInfoId, null);
+    }
+
+    /**
+     * Tells subscribers to drop everything they hold, in place of an event per movie info after a bulk change.
+     */
+    public void movieInfosReset() {
+        publish(MovieInfoEventType.RESET, null, null);
+    }
+
+    /**
+     * Live events only when lastEventId is null, otherwise the retained events after lastEventId followed by live ones.
+     * A RESET event is sent first when events after lastEventId have already been discarded or lastEventId was
+     * not sent by this process (e.g. after a restart), however far this process's own sequence has come.
+     */
+    public Flux<MovieInfoEvent> events(String lastEventId) {
+        return Flux.defer(() -> {
+            long currentEventId = currentEventId();
+            if (lastEventId == null) {
+                return eventSink.asFlux().filter(event -> event.getEventId() > currentEventId);
+            }
+            Long lastSequence = sequenceOf(lastEventId);
+            long oldestRetainedEventId = Math.max(1, currentEventId - historySize + 1);
+            if (lastSequence == null || lastSequence < oldestRetainedEventId - 1 || lastSequence > currentEventId) {
+                return Flux.just(new MovieInfoEvent(currentEventId, MovieInfoEventType.RESET, null, null))
+                        .concatWith(eventSink.asFlux().filter(event -> event.getEventId() > currentEventId));
+            }
+            return eventSink.asFlux().filter(event -> event.getEventId() > lastSequence);
+        });
+    }
+
+    /**
+     * The SSE id of event, to be sent back as Last-Event-ID.
+     */
+    public String lastEventId(MovieInfoEvent event) {
+        return epoch + EPOCH_SEPARATOR + event.getEventId();
+    }
+
+    // null when lastEventId is from another epoch or not an id of this service at all
+    private Long sequenceOf(String lastEventId) {
+        int separator = lastEventId.lastIndexOf(EPOCH_SEPARATOR);
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private long currentEventId() {
+        return lastEventId;
+    }
+
+    private void publish(MovieInfoEventType type, String movieInfoId, MovieInfo movieInfo) {
+        emitter.emit(() -> new MovieInfoEvent(++lastEventId, type, movieInfoId, movieInfo));
+    }
+}
@@ -0,0 +1,209 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoIngestFailure;
+import com.reactivespring.domain.MovieInfoIngestResult;
+import com.reactivespring.repository.MovieInfoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Backs POST /v1/movieInfos/ingest.
+ * Upserts the NDJSON movie infos of a request body in unordered bulkWrite batches while it is still being received.
+ * At most concurrency batches are parsed or being written at a time, the rest of the body is only read as they
+ * complete. Lines that don't parse, validate or write are reported in the result and don't stop the others.
+ */
+@Service
+public class MovieInfoIngestService {
+
+    public enum Events {
+        // a change event per movie info, and created ones on /v1/movieInfos/stream, like single POSTs
+        EACH,
+        // a single RESET change event once the load is over, nothing on /v1/movieInfos/stream
+        COALESCE,
+        // no events at all
+        NONE
+    }
+
+    // splits on \n and \r\n as the body arrives
+    private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes();
+
+    private final MovieInfoRepository movieInfoRepository;
+    private final MovieInfoEventService movieInfoEventService;
+    private final MovieInfoStreamService movieInfoStreamService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxReportedFailures;
+    private final Events defaultEvents;
+
+    public MovieInfoIngestService(MovieInfoRepository movieInfoRepository,
+                                  MovieInfoEventService movieInfoEventService,
+                                  MovieInfoStreamService movieInfoStreamService,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  @Value("${movieInfo.ingest.batchSize:500}") int batchSize,
+                                  @Value("${movieInfo.ingest.concurrency:4}") int concurrency,
+                                  @Value("${movieInfo.ingest.maxReportedFailures:1000}") int maxReportedFailures,
+                                  @Value("${movieInfo.ingest.events:COALESCE}") Events defaultEvents) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoEventService = movieInfoEventService;
+        this.movieInfoStreamService = movieInfoStreamService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxReportedFailures = maxReportedFailures;
+        this.defaultEvents = defaultEvents;
+    }
+
+    public Mono<MovieInfoIngestResult> ingest(Flux<DataBuffer> body, Events events) {
+        Events mode = events == null ? defaultEvents : events;
+        return Mono.defer(() -> {
+            // the RESET is owed as soon as anything was written, even when a later batch fails
+            AtomicBoolean written = new AtomicBoolean();
+            return LINE_DECODER.decode(body, ResolvableType.forClass(String.class), null, Map.of())
+                    .index()
+                    .filter(line -> !line.getT2().isBlank())
+                    .map(line -> parseLine(line.getT1() + 1, line.getT2()))
+                    .buffer(batchSize)
+                    .flatMapSequential(batch -> ingestBatch(batch, mode, written), concurrency)
+                    .reduceWith(MovieInfoIngestResult::new, this::addBatchResult)
+                    .doFinally(signalType -> {
+                        if (mode == Events.COALESCE && written.get()) {
+                            movieInfoEventService.movieInfosReset();
+                        }
+                    });
+        });
+    }
+
+    private IngestLine parseLine(long number, String line) {
+        MovieInfo movieInfo;
+        try {
+            movieInfo = objectMapper.readValue(line, MovieInfo.class);
+        } catch (JsonProcessingException e) {
+            return IngestLine.failed(number, null, "invalid movieInfo JSON : " + e.getOriginalMessage());
+        }
+        if (movieInfo == null) {
+            return IngestLine.failed(number, null, "invalid movieInfo JSON : null");
+        }
+        Set<ConstraintViolation<MovieInfo>> constraintViolations = validator.validate(movieInfo);
+        if (!constraintViolations.isEmpty()) {
+            String errorMessage = constraintViolations.stream().map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(","));
+            return IngestLine.failed(number, movieInfo.getMovieInfoId(), errorMessage);
+        }
+        return new IngestLine(number, movieInfo, null);
+    }
+
+    private Mono<MovieInfoIngestResult> ingestBatch(List<IngestLine> batch, Events events, AtomicBoolean written) {
+        var result = new MovieInfoIngestResult();
+        List<IngestLine> valid = new ArrayList<>();
+        batch.forEach(line -> {
+            if (line.error == null) {
+                valid.add(line);
+            } else {
+                result.getFailures().add(line.failure());
+            }
+        });
+        if (valid.isEmpty()) {
+            result.setFailed(result.getFailures().size());
+            return Mono.just(result);
+        }
+
+        List<MovieInfo> movieInfos = valid.stream().map(line -> line.movieInfo).collect(Collectors.toList());
+        return movieInfoRepository.upsertMovieInfos(movieInfos)
+                .map(upsertResult -> {
+                    for (int i = 0; i < valid.size(); i++) {
+                        MovieInfo movieInfo = movieInfos.get(i);
+                        String error = upsertResult.getErrors().get(i);
+                        if (error != null) {
+                            result.getFailures().add(new MovieInfoIngestFailure(valid.get(i).number, movieInfo.getMovieInfoId(), error));
+                            continue;
+                        }
+                        written.set(true);
+                        boolean inserted = upsertResult.getInserted().contains(i);
+                        if (inserted) {
+                            result.setInserted(result.getInserted() + 1);
+                        } else {
+                            result.setUpdated(result.getUpdated() + 1);
+                        }
+                        if (events == Events.EACH) {
+                            publish(movieInfo, inserted);
+                        }
+                    }
+                    result.setFailed(result.getFailures().size());
+                    result.getFailures().sort(Comparator.comparingLong(MovieInfoIngestFailure::getLine));
+                    return result;
+                });
+    }
+
+    private void publish(MovieInfo movieInfo, boolean inserted) {
+        if (inserted) {
+            movieInfoEventService.movieInfoCreated(movieInfo);
+            movieInfoStreamService.publish(movieInfo);
+        } else {
+            movieInfoEventService.movieInfoUpdated(movieInfo);
+        }
+    }
+
+    private MovieInfoIngestResult addBatchResult(MovieInfoIngestResult total, MovieInfoIngestResult batch) {
+        total.setInserted(total.getInserted() + batch.getInserted());
+        total.setUpdated(total.getUpdated() + batch.getUpdated());
+        total.setFailed(total.getFailed() + batch.getFailed());
+        for (MovieInfoIngestFailure failure : batch.getFailures()) {
+            if (total.getFailures().size() < maxReportedFailures) {
+                total.getFailures().add(failure);
+            } else {
+                total.setFailuresTruncated(true);
+            }
+        }
+        return total;
+    }
+
+    private static class IngestLine {
+
+        private final long number;
+        private final MovieInfo movieInfo;
+        private final String error;
+        private final String movieInfoId;
+
+        IngestLine(long number, MovieInfo movieInfo, String error) {
+            this(number, movieInfo, error, movieInfo == null ? null : movieInfo.getMovieInfoId());
+        }
+
+        private IngestLine(long number, MovieInfo movieInfo, String error, String movieInfoId) {
+            this.number = number;
+            this.movieInfo = movieInfo;
+            this.error = error;
+            this.movieInfoId = movieInfoId;
+        }
+
+        static IngestLine failed(long number, String movieInfoId, String error) {
+            return new IngestLine(number, null, error, movieInfoId);
+        }
+
+        MovieInfoIngestFailure failure() {
+            return new MovieInfoIngestFailure(number, movieInfoId, error);
+        }
+    }
+}
@@ -4,43 +4,64 @@ package com.reactivespring.service;
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.repository.MovieInfoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Service
 public class MovieInfoService {
 
     @Autowired
     private MovieInfoRepository movieInfoRepository;
 
+    @Autowired
+    private MovieInfoEventService movieInfoEventService;
+
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo){
 
-      return movieInfoRepository.save(movieInfo);
+      return movieInfoRepository.save(movieInfo)
+              .doOnNext(movieInfoEventService::movieInfoCreated);
     }
 
     public Flux<MovieInfo> getAllMovieInfos(){
         return movieInfoRepository.findAll();
     }
 
+    /**
+     * Up to limit movie infos ordered by id, starting after afterMovieInfoId when it is given.
+     */
+    public Flux<MovieInfo> getMovieInfos(Integer year, String afterMovieInfoId, int limit) {
+        var pageable = PageRequest.of(0, limit, Sort.by("movieInfoId"));
+        if(year != null){
+            return afterMovieInfoId == null
+                    ? movieInfoRepository.findByYear(year, pageable)
+                    : movieInfoRepository.findByYearAndMovieInfoIdGreaterThan(year, afterMovieInfoId, pageable);
+        }
+        return afterMovieInfoId == null
+                ? movieInfoRepository.findAllBy(pageable)
+                : movieInfoRepository.findByMovieInfoIdGreaterThan(afterMovieInfoId, pageable);
+    }
+
     public Mono<MovieInfo> getMovieInfo(String id) {
         return movieInfoRepository.findById(id);
     }
 
+    public Flux<MovieInfo> getMovieInfosByIds(List<String> ids) {
+        return movieInfoRepository.findAllById(ids);
+    }
+
     public Mono<MovieInfo> updateMovieInfo(MovieInfo updatedMovieInfo, String id) {
-        return movieInfoRepository.findById(id)
-                .flatMap(movieInfo -> {
-                    if(updatedMovieInfo.getName() != null) movieInfo.setName(updatedMovieInfo.getName());
-                    if(updatedMovieInfo.getCast() != null) movieInfo.setCast(updatedMovieInfo.getCast());
-                    if(updatedMovieInfo.getYear() != null) movieInfo.setYear(updatedMovieInfo.getYear());
-                    if(updatedMovieInfo.getReleaseDate() != null ) movieInfo.setReleaseDate(updatedMovieInfo.getReleaseDate());
-                    if(updatedMovieInfo.getYear() != null) movieInfo.setYear(updatedMovieInfo.getYear());
-                    return movieInfoRepository.save(movieInfo);
-                });
+        return movieInfoRepository.updateMovieInfo(id, updatedMovieInfo)
+                .doOnNext(movieInfoEventService::movieInfoUpdated);
     }
 
     public Mono<Void> deleteMovieInfo(String id) {
-        return movieInfoRepository.deleteById(id);
+        return movieInfoRepository.deleteById(id)
+                .doOnSuccess(unused -> movieInfoEventService.movieInfoDeleted(id));
     }
 
     public Flux<MovieInfo> getMovieInfoByYear(Integer year) {
@@ -0,0 +1,157 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.util.SerializedEmitter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Backs GET /v1/movieInfos/stream.
+ * New subscribers get at most historySize movie infos (and none older than historyTime when set) replayed
+ * before live ones; subscribers resuming after a known id get all the newer documents from Mongo instead, read
+ * resumeLimit at a time in movieInfoId order. Only ids that increase over time, like the ObjectIds Mongo generates,
+ * can be resumed from.
+ * Each subscriber is decoupled from the sink by its own backpressure strategy so one slow client
+ * cannot hold back the others.
+ */
+@Service
+public class MovieInfoStreamService {
+
+    public enum Backpressure {
+        BUFFER,
+        DROP,
+        LATEST
+    }
+
+    private final MovieInfoRepository movieInfoRepository;
+    private final int historySize;
+    private final Backpressure backpressure;
+    private final int bufferSize;
+    private final int resumeLimit;
+
+    // replays the bounded history to new subscribers
+    private final Sinks.Many<MovieInfo> replaySink;
+    // live movie infos only, for subscribers that resume from Mongo
+    private final Sinks.Many<MovieInfo> liveSink = Sinks.many().multicast().directBestEffort();
+    // addMovieInfo publishes from concurrent request threads
+    private final SerializedEmitter<MovieInfo> emitter;
+
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter droppedCounter;
+
+    public MovieInfoStreamService(MovieInfoRepository movieInfoRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${movieInfo.stream.historySize:100}") int historySize,
+                                  @Value("${movieInfo.stream.historyTime:0s}") Duration historyTime,
+                                  @Value("${movieInfo.stream.backpressure:BUFFER}") Backpressure backpressure,
+                                  @Value("${movieInfo.stream.bufferSize:256}") int bufferSize,
+                                  @Value("${movieInfo.stream.resumeLimit:1000}") int resumeLimit) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.historySize = historySize;
+        this.backpressure = backpressure;
+        this.bufferSize = bufferSize;
+        this.resumeLimit = resumeLimit;
+        this.replaySink = historyTime.isZero()
+                ? Sinks.many().replay().limit(historySize)
+                : Sinks.many().replay().limit(historySize, historyTime);
+        this.emitter = new SerializedEmitter<>("movieInfoStream", meterRegistry, List.of(replaySink, liveSink));
+
+        Gauge.builder("movieinfo.stream.subscribers", this, service -> service.replaySink.currentSubscriberCount() + service.liveSink.currentSubscriberCount())
+                .register(meterRegistry);
+        Gauge.builder("movieinfo.stream.history.size", this, service -> Math.min(service.emitted.get(), service.historySize))
+                .description("Upper bound of the movie infos retained for replay")
+                .register(meterRegistry);
+        Gauge.builder("movieinfo.stream.subscriber.backlog", backlog, AtomicLong::get)
+                .description("Movie infos buffered for subscribers that have not requested them yet")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("movieinfo.stream.dropped")
+                .tag("backpressure", backpressure.name())
+                .register(meterRegistry);
+    }
+
+    public void publish(MovieInfo movieInfo) {
+        emitted.incrementAndGet();
+        emitter.emit(movieInfo);
+    }
+
+    public Flux<MovieInfo> stream(String afterMovieInfoId) {
+        if (afterMovieInfoId == null) {
+            return withBackpressure(replaySink.asFlux());
+        }
+        return resumeAfter(afterMovieInfoId);
+    }
+
+    private Flux<MovieInfo> resumeAfter(String afterMovieInfoId) {
+        return Flux.defer(() -> {
+            Set<String> replayedIds = ConcurrentHashMap.newKeySet();
+            // a full page may be followed by more, the last one is short
+            Flux<Tuple2<MovieInfo, Boolean>> history = historyPage(afterMovieInfoId)
+                    .expand(page -> page.size() < resumeLimit
+                            ? Mono.empty()
+                            : historyPage(page.get(page.size() - 1).getMovieInfoId()))
+                    .flatMapIterable(page -> page)
+                    .map(movieInfo -> Tuples.of(movieInfo, true));
+            Flux<Tuple2<MovieInfo, Boolean>> live = withBackpressure(liveSink.asFlux())
+                    .map(movieInfo -> Tuples.of(movieInfo, false));
+
+            // live movie infos are buffered until the history is replayed; drop the ones the history already had
+            return Flux.mergeSequential(history, live)
+                    .filter(movieInfo -> movieInfo.getT2()
+                            ? replayedIds.add(movieInfo.getT1().getMovieInfoId())
+                            : !replayedIds.contains(movieInfo.getT1().getMovieInfoId()))
+                    .map(Tuple2::getT1);
+        });
+    }
+
+    private Mono<List<MovieInfo>> historyPage(String afterMovieInfoId) {
+        return movieInfoRepository
+                .findByMovieInfoIdGreaterThan(afterMovieInfoId, PageRequest.of(0, resumeLimit, Sort.by("movieInfoId")))
+                .collectList();
+    }
+
+    private Flux<MovieInfo> withBackpressure(Flux<MovieInfo> movieInfos) {
+        switch (backpressure) {
+            case DROP:
+                return movieInfos.onBackpressureDrop(dropped -> droppedCounter.increment());
+            case LATEST:
+                return movieInfos.onBackpressureLatest();
+            default:
+                return Flux.defer(() -> {
+                    AtomicInteger subscriberBacklog = new AtomicInteger();
+                    return movieInfos
+                            .doOnNext(movieInfo -> changeBacklog(subscriberBacklog, 1))
+                            .onBackpressureBuffer(bufferSize, dropped -> {
+                                droppedCounter.increment();
+                                changeBacklog(subscriberBacklog, -1);
+                            }, BufferOverflowStrategy.DROP_OLDEST)
+                            .doOnNext(movieInfo -> changeBacklog(subscriberBacklog, -1))
+                            .doFinally(signalType -> backlog.addAndGet(-subscriberBacklog.getAndSet(0)));
+                });
+        }
+    }
+
+    private void changeBacklog(AtomicInteger subscriberBacklog, int delta) {
+        subscriberBacklog.addAndGet(delta);
+        backlog.addAndGet(delta);
+    }
+}
@@ -0,0 +1,99 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Lets many threads emit into {@link Sinks.Many} instances without tripping FAIL_NON_SERIALIZED.
+ * Callers enqueue into a multi-producer queue and whichever thread wins the work-in-progress counter
+ * drains it, so emissions happen one at a time and in enqueue order without holding a lock.
+ * Values are supplied lazily so that anything order-sensitive (e.g. sequence numbers) is computed
+ * in emission order.
+ */
+@Slf4j
+public class SerializedEmitter<T> {
+
+    private static final int MAX_NON_SERIALIZED_RETRIES = 100;
+    private static final long NON_SERIALIZED_PARK_NANOS = Duration.ofMillis(1).toNanos();
+
+    private final List<Sinks.Many<T>> sinks;
+    private final Queue<Supplier<T>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Counter emittedCounter;
+    private final Map<Sinks.EmitResult, Counter> failureCounters = new EnumMap<>(Sinks.EmitResult.class);
+
+    public SerializedEmitter(String name, MeterRegistry meterRegistry, List<Sinks.Many<T>> sinks) {
+        this.sinks = sinks;
+        this.emittedCounter = Counter.builder("movieinfo.sink.emitted")
+                .tag("sink", name)
+                .register(meterRegistry);
+        for (Sinks.EmitResult result : Sinks.EmitResult.values()) {
+            if (result.isFailure()) {
+                failureCounters.put(result, Counter.builder("movieinfo.sink.emit.failures")
+                        .tag("sink", name)
+                        .tag("result", result.name())
+                        .register(meterRegistry));
+            }
+        }
+        Gauge.builder("movieinfo.sink.pending", pending, AtomicInteger::get)
+                .tag("sink", name)
+                .register(meterRegistry);
+    }
+
+    public void emit(T value) {
+        emit(() -> value);
+    }
+
+    public void emit(Supplier<T> value) {
+        pending.incrementAndGet();
+        queue.offer(value);
+        if (wip.getAndIncrement() != 0) {
+            // another thread is draining and will pick this value up
+            return;
+        }
+        int missed = 1;
+        do {
+            Supplier<T> next;
+            while ((next = queue.poll()) != null) {
+                pending.decrementAndGet();
+                emitToSinks(next.get());
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emitToSinks(T value) {
+        for (Sinks.Many<T> sink : sinks) {
+            Sinks.EmitResult result = sink.tryEmitNext(value);
+            // only possible if something emits into the sink without going through this emitter
+            for (int retries = 0; result == Sinks.EmitResult.FAIL_NON_SERIALIZED && retries < MAX_NON_SERIALIZED_RETRIES; retries++) {
+                LockSupport.parkNanos(NON_SERIALIZED_PARK_NANOS);
+                result = sink.tryEmitNext(value);
+            }
+            if (result.isSuccess()) {
+                emittedCounter.increment();
+            } else {
+                // zero subscribers is routine for live-only sinks, anything else means the value was lost
+                if (result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                    log.warn("Emission of {} failed with {}", value, result);
+                }
+                failureCounters.get(result).increment();
+            }
+        }
+    }
+}
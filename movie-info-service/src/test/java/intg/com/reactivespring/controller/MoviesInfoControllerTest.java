@@ -2,12 +2,14 @@ package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.util.ContinuationToken;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -76,6 +78,33 @@ class MoviesInfoControllerTest {
                 .hasSize(3);
     }
 
+    @Test
+    void getMovieInfosPageByPage(){
+        var firstPage = webTestClient.get().uri(MOVIES_INFO_URL+"?limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2)
+                .returnResult();
+
+        var continuationToken = firstPage.getResponseHeaders().getFirst(ContinuationToken.HEADER);
+        assertNotNull(continuationToken);
+
+        var secondPage = webTestClient.get().uri(MOVIES_INFO_URL+"?limit=2&after={token}", continuationToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ContinuationToken.HEADER)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals("ghi", secondPage.get(0).getMovieInfoId());
+    }
+
     @Test
     void getMovieInfo() {
 
@@ -173,4 +202,42 @@ class MoviesInfoControllerTest {
                 .hasSize(3);
     }
 
-}
\ No newline at end of file
+    @Test
+    void getMovieInfosByIds(){
+
+        webTestClient.post().uri(MOVIES_INFO_URL+"/bulk")
+                .bodyValue(List.of("abc", "ghi", "ter"))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void ingestMovieInfos(){
+        // abc is replaced, jkl is new, the last line takes a name that def already has
+        var ndjson = "{\"movieInfoId\": \"abc\", \"name\": \"Batman Begins\", \"year\": 2005, \"cast\": [\"Christian Bale\"]}\n"
+                + "{\"movieInfoId\": \"jkl\", \"name\": \"Batman Returns\", \"year\": 1992}\n"
+                + "{\"movieInfoId\": \"mno\", \"name\": \"\", \"year\": 1989}\n"
+                + "{\"movieInfoId\": \"pqr\", \"name\": \"The Dark Knight\", \"year\": 2008}\n";
+
+        webTestClient.post().uri(MOVIES_INFO_URL+"/ingest")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.inserted").isEqualTo(1)
+                .jsonPath("$.updated").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(2)
+                .jsonPath("$.failures[0].movieInfoId").isEqualTo("mno")
+                .jsonPath("$.failures[1].movieInfoId").isEqualTo("pqr");
+
+        assertEquals(List.of("Christian Bale"), movieInfoRepository.findById("abc").block().getCast());
+        assertEquals(1992, movieInfoRepository.findById("jkl").block().getYear());
+        assertEquals(4, movieInfoRepository.count().block());
+    }
+
+}
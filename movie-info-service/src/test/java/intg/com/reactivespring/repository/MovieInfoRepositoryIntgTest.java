@@ -71,7 +71,7 @@ class MovieInfoRepositoryIntgTest {
     @Test
     void saveMovieInfo(){
 
-        var movieinfo = new MovieInfo(null, "Batman Begins",
+        var movieinfo = new MovieInfo(null, "Batman Begins1",
                 2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
 
         var movieInfoMono = movieInfoRepository.save(movieinfo);
@@ -79,7 +79,7 @@ class MovieInfoRepositoryIntgTest {
         StepVerifier.create(movieInfoMono)
                 .assertNext(movieInfo -> {
                     assertNotNull(movieInfo.getMovieInfoId());
-                    assertEquals("Batman Begins", movieInfo.getName());
+                    assertEquals("Batman Begins1", movieInfo.getName());
                 }).verifyComplete();
 
 
@@ -102,6 +102,28 @@ class MovieInfoRepositoryIntgTest {
 
     }
 
+    @Test
+    void updateMovieInfoPartially(){
+
+        var update = new MovieInfo(null, null, 2021, null, null);
+
+        StepVerifier.create(movieInfoRepository.updateMovieInfo("abc", update))
+                .assertNext(movieInfo -> {
+                    assertEquals(2021, movieInfo.getYear());
+                    assertEquals("Batman Begins", movieInfo.getName());
+                    assertEquals(List.of("Christian Bale", "Michael Cane"), movieInfo.getCast());
+                }).verifyComplete();
+    }
+
+    @Test
+    void updateMovieInfoNotFound(){
+
+        var update = new MovieInfo(null, "Batman Begins updated", null, null, null);
+
+        StepVerifier.create(movieInfoRepository.updateMovieInfo("xyz", update))
+                .verifyComplete();
+    }
+
     @Test
     void deleteMovieInfo(){
 
@@ -0,0 +1,113 @@
+package com.reactivespring.config;
+
+import brave.Tracing;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.brave.bridge.BraveBaggageManager;
+import org.springframework.cloud.sleuth.brave.bridge.BraveTracer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryTracingConfigTest {
+
+    interface Repository {
+        Mono<String> findById(String id);
+        Flux<String> findAll();
+    }
+
+    List<MutableSpan> spans = new CopyOnWriteArrayList<>();
+
+    Tracing tracing = Tracing.newBuilder()
+            .addSpanHandler(new SpanHandler() {
+                @Override
+                public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+                    spans.add(span);
+                    return true;
+                }
+            })
+            .build();
+
+    Tracer tracer = new BraveTracer(tracing.tracer(), new BraveBaggageManager());
+
+    Repository repository = tracedRepository(new Repository() {
+        @Override
+        public Mono<String> findById(String id) {
+            return "missing".equals(id) ? Mono.error(new IllegalStateException("boom")) : Mono.just(id);
+        }
+
+        @Override
+        public Flux<String> findAll() {
+            return Flux.just("a", "b");
+        }
+    });
+
+    @AfterEach
+    void tearDown() {
+        tracing.close();
+    }
+
+    @Test
+    void tracedRequest_startsChildSpanPerCall() {
+        Span parent = tracer.nextSpan().start();
+
+        StepVerifier.create(repository.findAll()
+                        .contextWrite(Context.of(org.springframework.cloud.sleuth.TraceContext.class, parent.context())))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        assertEquals(1, spans.size());
+        MutableSpan span = spans.get(0);
+        assertEquals("findAll", span.name());
+        assertEquals(brave.Span.Kind.CLIENT, span.kind());
+        assertEquals("mongodb", span.remoteServiceName());
+        assertEquals("movieInfo", span.tag("mongodb.collection"));
+        assertEquals("Repository", span.tag("spring.data.repository"));
+        assertEquals(parent.context().traceId(), span.traceId());
+        assertEquals(parent.context().spanId(), span.parentId());
+    }
+
+    @Test
+    void tracedRequest_recordsError() {
+        Span parent = tracer.nextSpan().start();
+
+        StepVerifier.create(repository.findById("missing")
+                        .contextWrite(Context.of(org.springframework.cloud.sleuth.TraceContext.class, parent.context())))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(1, spans.size());
+        assertNotNull(spans.get(0).error());
+    }
+
+    @Test
+    void untracedCall_startsNoSpan() {
+        StepVerifier.create(repository.findById("1"))
+                .expectNext("1")
+                .verifyComplete();
+
+        assertTrue(spans.isEmpty());
+    }
+
+    private Repository tracedRepository(Repository target) {
+        var proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(Repository.class);
+        proxyFactory.addAdvice(new RepositoryTracingConfig.TracingInterceptor(() -> tracer,
+                "Repository", "movieInfo"));
+        return (Repository) proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,102 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.service.MovieInfoEventService;
+import com.reactivespring.service.MovieInfoIngestService;
+import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.service.MovieInfoStreamService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = MoviesInfoController.class)
+@AutoConfigureWebTestClient
+@Import({MovieInfoEventService.class, MovieInfoStreamService.class, SimpleMeterRegistry.class})
+public class MoviesInfoControllerConcurrencyUnitTest {
+
+    final static String MOVIES_INFO_URL = "/v1/movieInfos";
+    final static int THREADS = 8;
+    final static int POSTS_PER_THREAD = 50;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MovieInfoStreamService movieInfoStreamService;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @MockBean
+    private MovieInfoService movieInfoServiceMock;
+
+    @MockBean
+    private MovieInfoIngestService movieInfoIngestServiceMock;
+
+    @MockBean
+    private MovieInfoRepository movieInfoRepositoryMock;
+
+    @Test
+    void concurrentAddMovieInfoPublishesEveryMovieInfo() throws InterruptedException {
+        when(movieInfoServiceMock.addMovieInfo(isA(MovieInfo.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.<MovieInfo>getArgument(0))
+                        .publishOn(Schedulers.parallel()));
+
+        Set<String> streamed = ConcurrentHashMap.newKeySet();
+        Disposable subscription = movieInfoStreamService.stream(null)
+                .subscribe(movieInfo -> streamed.add(movieInfo.getMovieInfoId()));
+
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < POSTS_PER_THREAD; i++) {
+                    var movieInfo = new MovieInfo(thread + "-" + i, "Batman Begins",
+                            2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+                    webTestClient.post()
+                            .uri(MOVIES_INFO_URL)
+                            .bodyValue(movieInfo)
+                            .exchange()
+                            .expectStatus()
+                            .isCreated();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        subscription.dispose();
+
+        assertEquals(THREADS * POSTS_PER_THREAD, streamed.size());
+        assertEquals(0.0, meterRegistry.get("movieinfo.sink.emit.failures")
+                .tag("sink", "movieInfoStream").tag("result", "FAIL_NON_SERIALIZED").counter().count());
+        assertEquals(0.0, meterRegistry.get("movieinfo.sink.emit.failures")
+                .tag("sink", "movieInfoStream").tag("result", "FAIL_OVERFLOW").counter().count());
+    }
+}
@@ -1,26 +1,47 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoEventType;
+import com.reactivespring.domain.MovieInfoIngestFailure;
+import com.reactivespring.domain.MovieInfoIngestResult;
+import com.reactivespring.filter.DeadlineWebFilter;
+import com.reactivespring.service.MovieInfoEventService;
+import com.reactivespring.service.MovieInfoIngestService;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.service.MovieInfoStreamService;
+import com.reactivespring.util.ContinuationToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = MoviesInfoController.class)
 @AutoConfigureWebTestClient
+@Import({MovieInfoEventService.class, SimpleMeterRegistry.class})
 public class MoviesInfoControllerUnitTest {
 
     final static String MOVIES_INFO_URL = "/v1/movieInfos";
@@ -30,6 +51,15 @@ public class MoviesInfoControllerUnitTest {
     @MockBean
     private MovieInfoService movieInfoServiceMock;
 
+    @MockBean
+    private MovieInfoStreamService movieInfoStreamServiceMock;
+
+    @MockBean
+    private MovieInfoIngestService movieInfoIngestServiceMock;
+
+    @Autowired
+    private MovieInfoEventService movieInfoEventService;
+
 
     @Test
     void getAllMoviesInfo(){
@@ -52,6 +82,86 @@ public class MoviesInfoControllerUnitTest {
                 .hasSize(3);
     }
 
+    @Test
+    void getAllMoviesInfo_json(){
+        when(movieInfoServiceMock.getAllMovieInfos()).thenReturn(Flux.just(new MovieInfo("abc", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"))));
+
+        webTestClient.get().uri(MOVIES_INFO_URL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void getMovieInfosPage(){
+        var page = List.of(new MovieInfo("abc", "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("def", "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+
+        when(movieInfoServiceMock.getMovieInfos(null, null, 2)).thenReturn(Flux.fromIterable(page));
+
+        var continuationToken = webTestClient.get().uri(MOVIES_INFO_URL+"?limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(ContinuationToken.HEADER);
+
+        assertNotNull(continuationToken);
+        assertEquals("def", ContinuationToken.decode(continuationToken));
+
+        when(movieInfoServiceMock.getMovieInfos(null, "def", 2)).thenReturn(Flux.just(new MovieInfo("ghi", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))));
+
+        webTestClient.get().uri(MOVIES_INFO_URL+"?limit=2&after={token}", continuationToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ContinuationToken.HEADER)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getMovieInfosPage_invalidToken(){
+        webTestClient.get().uri(MOVIES_INFO_URL+"?limit=2&after=not-a-token")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void streamAllMovieInfos(){
+        when(movieInfoServiceMock.getAllMovieInfos()).thenReturn(Flux.just(
+                new MovieInfo("abc", "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("def", "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18"))));
+
+        var movieInfos = webTestClient.get().uri(MOVIES_INFO_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        StepVerifier.create(movieInfos)
+                .assertNext(movieInfo -> assertEquals("abc", movieInfo.getMovieInfoId()))
+                .assertNext(movieInfo -> assertEquals("def", movieInfo.getMovieInfoId()))
+                .verifyComplete();
+    }
+
     @Test
     void getMovieInfo(){
         String movieId = "abc";
@@ -100,6 +210,24 @@ public class MoviesInfoControllerUnitTest {
     }
 
 
+    @Test
+    void ingestMovieInfos() {
+        when(movieInfoIngestServiceMock.ingest(any(), eq(MovieInfoIngestService.Events.NONE))).thenReturn(Mono.just(
+                new MovieInfoIngestResult(1, 0, 1, List.of(new MovieInfoIngestFailure(2, "def", "movieInfo.year must be a positive value")), false)));
+
+        webTestClient.post().uri(MOVIES_INFO_URL+"/ingest?events=NONE")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"movieInfoId\": \"abc\", \"name\": \"Batman Begins\", \"year\": 2005}\n"
+                        + "{\"movieInfoId\": \"def\", \"name\": \"The Dark Knight\", \"year\": -1}\n")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.inserted").isEqualTo(1)
+                .jsonPath("$.failures[0].line").isEqualTo(2)
+                .jsonPath("$.failures[0].movieInfoId").isEqualTo("def");
+    }
+
     @Test
     void updateMovieInfo() {
 
@@ -166,4 +294,74 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void getMovieInfosByIds(){
+        var movieinfos = List.of(new MovieInfo("abc", "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("def", "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+
+        when(movieInfoServiceMock.getMovieInfosByIds(List.of("abc", "def")))
+                .thenReturn(Flux.fromIterable(movieinfos));
+
+        webTestClient.post().uri(MOVIES_INFO_URL+"/bulk")
+                .bodyValue(List.of("abc", "def"))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void streamMovieInfoEventsFromLastEventId(){
+        var movieInfo = new MovieInfo("abc", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+        movieInfoEventService.movieInfoCreated(movieInfo);
+        movieInfoEventService.movieInfoUpdated(movieInfo);
+        movieInfoEventService.movieInfoDeleted("abc");
+
+        var events = webTestClient.get().uri(MOVIES_INFO_URL+"/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", lastEventId(1L))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfoEvent>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(events)
+                .assertNext(event -> {
+                    assertEquals(lastEventId(2L), event.id());
+                    assertEquals(MovieInfoEventType.UPDATED, Objects.requireNonNull(event.data()).getType());
+                })
+                .assertNext(event -> {
+                    assertEquals(lastEventId(3L), event.id());
+                    assertEquals(MovieInfoEventType.DELETED, Objects.requireNonNull(event.data()).getType());
+                    assertEquals("abc", event.data().getMovieInfoId());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void getMovieInfoById_deadlineExceeded(){
+
+        var cancelled = new AtomicBoolean();
+        when(movieInfoServiceMock.getMovieInfo("abc"))
+                .thenReturn(Mono.<MovieInfo>never().doOnCancel(() -> cancelled.set(true)));
+
+        webTestClient.get().uri(MOVIES_INFO_URL+"/{id}", "abc")
+                .header(DeadlineWebFilter.HEADER, "100")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(504);
+
+        assertTrue(cancelled.get());
+    }
+
+    private String lastEventId(long eventId){
+        return movieInfoEventService.lastEventId(new MovieInfoEvent(eventId, null, null, null));
+    }
 }
@@ -0,0 +1,106 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoEventServiceTest {
+
+    MovieInfoEventService movieInfoEventService = new MovieInfoEventService(new SimpleMeterRegistry(), 2);
+
+    MovieInfo movieInfo = new MovieInfo("abc", "Batman Begins",
+            2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+    @Test
+    void newSubscribersOnlyReceiveLiveEvents(){
+        movieInfoEventService.movieInfoCreated(movieInfo);
+
+        StepVerifier.create(movieInfoEventService.events(null))
+                .then(() -> movieInfoEventService.movieInfoUpdated(movieInfo))
+                .assertNext(event -> {
+                    assertEquals(2L, event.getEventId());
+                    assertEquals(MovieInfoEventType.UPDATED, event.getType());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resumeFromLastEventId(){
+        movieInfoEventService.movieInfoCreated(movieInfo);
+        movieInfoEventService.movieInfoUpdated(movieInfo);
+        movieInfoEventService.movieInfoDeleted("abc");
+
+        StepVerifier.create(movieInfoEventService.events(lastEventId(2)))
+                .assertNext(event -> assertEquals(MovieInfoEventType.DELETED, event.getType()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resetWhenLastEventIdIsNoLongerRetained(){
+        movieInfoEventService.movieInfoCreated(movieInfo);
+        movieInfoEventService.movieInfoUpdated(movieInfo);
+        movieInfoEventService.movieInfoUpdated(movieInfo);
+        movieInfoEventService.movieInfoDeleted("abc");
+
+        StepVerifier.create(movieInfoEventService.events(lastEventId(1)))
+                .assertNext(event -> {
+                    assertEquals(4L, event.getEventId());
+                    assertEquals(MovieInfoEventType.RESET, event.getType());
+                })
+                .then(() -> movieInfoEventService.movieInfoCreated(movieInfo))
+                .assertNext(event -> assertEquals(5L, event.getEventId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resetWhenLastEventIdIsFromAnotherProcess(){
+        StepVerifier.create(movieInfoEventService.events("another-process:42"))
+                .assertNext(event -> assertEquals(MovieInfoEventType.RESET, event.getType()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resetWhenTheRestartedProcessHasPassedTheLastEventId(){
+        var previousProcess = new MovieInfoEventService(new SimpleMeterRegistry(), 2);
+        previousProcess.movieInfoCreated(movieInfo);
+        String lastEventId = previousProcess.lastEventId(new MovieInfoEvent(1L, MovieInfoEventType.CREATED, "abc", movieInfo));
+
+        movieInfoEventService.movieInfoCreated(movieInfo);
+        movieInfoEventService.movieInfoUpdated(movieInfo);
+        movieInfoEventService.movieInfoDeleted("abc");
+
+        StepVerifier.create(movieInfoEventService.events(lastEventId))
+                .assertNext(event -> {
+                    assertEquals(3L, event.getEventId());
+                    assertEquals(MovieInfoEventType.RESET, event.getType());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resetWhenLastEventIdIsMalformed(){
+        movieInfoEventService.movieInfoCreated(movieInfo);
+
+        StepVerifier.create(movieInfoEventService.events("1"))
+                .assertNext(event -> assertEquals(MovieInfoEventType.RESET, event.getType()))
+                .thenCancel()
+                .verify();
+    }
+
+    private String lastEventId(long eventId){
+        return movieInfoEventService.lastEventId(new MovieInfoEvent(eventId, MovieInfoEventType.CREATED, "abc", movieInfo));
+    }
+}
@@ -0,0 +1,150 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.BulkUpsertResult;
+import com.reactivespring.repository.MovieInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MovieInfoIngestServiceTest {
+
+    MovieInfoRepository movieInfoRepository = Mockito.mock(MovieInfoRepository.class);
+    MovieInfoEventService movieInfoEventService = Mockito.mock(MovieInfoEventService.class);
+    MovieInfoStreamService movieInfoStreamService = Mockito.mock(MovieInfoStreamService.class);
+
+    @Test
+    void upsertsValidLinesAndReportsTheOthers(){
+        var ingestService = ingestService(500);
+        when(movieInfoRepository.upsertMovieInfos(anyList()))
+                .thenReturn(Mono.just(new BulkUpsertResult(Set.of(0), Map.of(2, "E11000 duplicate key error"))));
+
+        // the first line is split across two buffers, the way it may arrive from the network
+        var body = body("{\"movieInfoId\": \"abc\", \"name\": \"Batman Begins\", \"year\": 2005, ",
+                "\"releaseDate\": \"2005-06-15\"}\n{\"movieInfoId\": \"def\", \"name\": \n",
+                "\n",
+                "{\"movieInfoId\": \"ghi\", \"name\": \"\", \"year\": -1}\n",
+                "{\"movieInfoId\": \"jkl\", \"name\": \"The Dark Knight\", \"year\": 2008}\n",
+                "{\"name\": \"Batman Begins\", \"year\": 2005}");
+
+        StepVerifier.create(ingestService.ingest(body, null))
+                .assertNext(result -> {
+                    assertEquals(1, result.getInserted());
+                    assertEquals(1, result.getUpdated());
+                    assertEquals(3, result.getFailed());
+                    assertEquals(List.of(2L, 4L, 6L), result.getFailures().stream()
+                            .map(failure -> failure.getLine()).collect(Collectors.toList()));
+                    assertEquals("ghi", result.getFailures().get(1).getMovieInfoId());
+                    assertEquals("movieInfo.name must be present,movieInfo.year must be a positive value",
+                            result.getFailures().get(1).getError());
+                    assertEquals("E11000 duplicate key error", result.getFailures().get(2).getError());
+                    assertFalse(result.isFailuresTruncated());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<MovieInfo>> written = ArgumentCaptor.forClass(List.class);
+        verify(movieInfoRepository).upsertMovieInfos(written.capture());
+        assertEquals(Arrays.asList("abc", "jkl", null), written.getValue().stream()
+                .map(MovieInfo::getMovieInfoId).collect(Collectors.toList()));
+        // COALESCE by default
+        verify(movieInfoEventService).movieInfosReset();
+        verify(movieInfoEventService, never()).movieInfoCreated(any());
+        verifyNoInteractions(movieInfoStreamService);
+    }
+
+    @Test
+    void writesInBatchesAndPublishesEachChange(){
+        var ingestService = ingestService(2);
+        when(movieInfoRepository.upsertMovieInfos(anyList()))
+                .thenReturn(Mono.just(new BulkUpsertResult(Set.of(0), Map.of())));
+
+        var body = body("{\"movieInfoId\": \"a\", \"name\": \"A\", \"year\": 2001}\n",
+                "{\"movieInfoId\": \"b\", \"name\": \"B\", \"year\": 2002}\n",
+                "{\"movieInfoId\": \"c\", \"name\": \"C\", \"year\": 2003}\n",
+                "{\"movieInfoId\": \"d\", \"name\": \"D\", \"year\": 2004}\n",
+                "{\"movieInfoId\": \"e\", \"name\": \"E\", \"year\": 2005}\n");
+
+        StepVerifier.create(ingestService.ingest(body, MovieInfoIngestService.Events.EACH))
+                .assertNext(result -> {
+                    assertEquals(3, result.getInserted());
+                    assertEquals(2, result.getUpdated());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<MovieInfo>> written = ArgumentCaptor.forClass(List.class);
+        verify(movieInfoRepository, times(3)).upsertMovieInfos(written.capture());
+        assertEquals(List.of(2, 2, 1), written.getAllValues().stream().map(List::size).collect(Collectors.toList()));
+        verify(movieInfoEventService, times(3)).movieInfoCreated(any());
+        verify(movieInfoEventService, times(2)).movieInfoUpdated(any());
+        verify(movieInfoStreamService, times(3)).publish(any());
+        verify(movieInfoEventService, never()).movieInfosReset();
+    }
+
+    @Test
+    void noEvents(){
+        var ingestService = ingestService(500);
+        when(movieInfoRepository.upsertMovieInfos(anyList()))
+                .thenReturn(Mono.just(new BulkUpsertResult(Set.of(0), Map.of())));
+
+        StepVerifier.create(ingestService.ingest(body("{\"movieInfoId\": \"a\", \"name\": \"A\", \"year\": 2001}\n"),
+                        MovieInfoIngestService.Events.NONE))
+                .assertNext(result -> assertEquals(1, result.getInserted()))
+                .verifyComplete();
+
+        verifyNoInteractions(movieInfoEventService, movieInfoStreamService);
+    }
+
+    @Test
+    void resetAfterAFailedLoadThatWroteSomething(){
+        var ingestService = ingestService(1);
+        when(movieInfoRepository.upsertMovieInfos(anyList()))
+                .thenReturn(Mono.just(new BulkUpsertResult(Set.of(0), Map.of())))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        var body = body("{\"movieInfoId\": \"a\", \"name\": \"A\", \"year\": 2001}\n",
+                "{\"movieInfoId\": \"b\", \"name\": \"B\", \"year\": 2002}\n");
+
+        StepVerifier.create(ingestService.ingest(body, MovieInfoIngestService.Events.COALESCE))
+                .expectErrorMessage("connection lost")
+                .verify();
+
+        verify(movieInfoEventService).movieInfosReset();
+    }
+
+    private MovieInfoIngestService ingestService(int batchSize) {
+        return new MovieInfoIngestService(movieInfoRepository, movieInfoEventService, movieInfoStreamService,
+                Jackson2ObjectMapperBuilder.json().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                batchSize, 2, 1000, MovieInfoIngestService.Events.COALESCE);
+    }
+
+    private static Flux<DataBuffer> body(String... chunks) {
+        var bufferFactory = new DefaultDataBufferFactory();
+        return Flux.fromArray(chunks)
+                .map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+}
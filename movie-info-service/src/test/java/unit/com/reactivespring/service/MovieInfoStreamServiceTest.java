@@ -0,0 +1,116 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class MovieInfoStreamServiceTest {
+
+    MovieInfoRepository movieInfoRepository = Mockito.mock(MovieInfoRepository.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void replaysBoundedHistory(){
+        var movieInfoStreamService = streamService(2, MovieInfoStreamService.Backpressure.BUFFER, 16);
+
+        movieInfoStreamService.publish(movieInfo("a"));
+        movieInfoStreamService.publish(movieInfo("b"));
+        movieInfoStreamService.publish(movieInfo("c"));
+
+        StepVerifier.create(movieInfoStreamService.stream(null))
+                .assertNext(movieInfo -> assertEquals("b", movieInfo.getMovieInfoId()))
+                .assertNext(movieInfo -> assertEquals("c", movieInfo.getMovieInfoId()))
+                .then(() -> movieInfoStreamService.publish(movieInfo("d")))
+                .assertNext(movieInfo -> assertEquals("d", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(2.0, meterRegistry.get("movieinfo.stream.history.size").gauge().value());
+    }
+
+    @Test
+    void slowSubscriberDropsOldestBeyondBufferSize(){
+        var movieInfoStreamService = streamService(1, MovieInfoStreamService.Backpressure.BUFFER, 2);
+
+        StepVerifier.create(movieInfoStreamService.stream(null), 0)
+                .then(() -> {
+                    movieInfoStreamService.publish(movieInfo("a"));
+                    movieInfoStreamService.publish(movieInfo("b"));
+                    movieInfoStreamService.publish(movieInfo("c"));
+                })
+                .then(() -> assertEquals(2.0, meterRegistry.get("movieinfo.stream.subscriber.backlog").gauge().value()))
+                .thenRequest(2)
+                .assertNext(movieInfo -> assertEquals("b", movieInfo.getMovieInfoId()))
+                .assertNext(movieInfo -> assertEquals("c", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1.0, meterRegistry.get("movieinfo.stream.dropped").counter().count());
+        assertEquals(0.0, meterRegistry.get("movieinfo.stream.subscriber.backlog").gauge().value());
+    }
+
+    @Test
+    void resumeAfterIdReplaysFromMongoThenLive(){
+        var movieInfoStreamService = streamService(10, MovieInfoStreamService.Backpressure.BUFFER, 16);
+        movieInfoStreamService.publish(movieInfo("a"));
+
+        when(movieInfoRepository.findByMovieInfoIdGreaterThan(eq("a"), any()))
+                .thenReturn(Flux.just(movieInfo("b"), movieInfo("c")).delayElements(Duration.ofMillis(50)));
+
+        StepVerifier.create(movieInfoStreamService.stream("a"))
+                .then(() -> movieInfoStreamService.publish(movieInfo("c")))
+                .then(() -> movieInfoStreamService.publish(movieInfo("d")))
+                .assertNext(movieInfo -> assertEquals("b", movieInfo.getMovieInfoId()))
+                .assertNext(movieInfo -> assertEquals("c", movieInfo.getMovieInfoId()))
+                .assertNext(movieInfo -> assertEquals("d", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resumeAfterIdPagesThroughTheWholeHistory(){
+        var movieInfoStreamService = new MovieInfoStreamService(movieInfoRepository, meterRegistry,
+                10, Duration.ZERO, MovieInfoStreamService.Backpressure.BUFFER, 16, 2);
+
+        when(movieInfoRepository.findByMovieInfoIdGreaterThan(eq("a"), any()))
+                .thenReturn(Flux.just(movieInfo("b"), movieInfo("c")));
+        when(movieInfoRepository.findByMovieInfoIdGreaterThan(eq("c"), any()))
+                .thenReturn(Flux.just(movieInfo("d"), movieInfo("e")));
+        when(movieInfoRepository.findByMovieInfoIdGreaterThan(eq("e"), any()))
+                .thenReturn(Flux.just(movieInfo("f")));
+
+        StepVerifier.create(movieInfoStreamService.stream("a"))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("b"))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("c"))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("d"))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("e"))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("f"))
+                .then(() -> movieInfoStreamService.publish(movieInfo("g")))
+                .assertNext(movieInfo -> assertEquals("g", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    private MovieInfoStreamService streamService(int historySize, MovieInfoStreamService.Backpressure backpressure, int bufferSize){
+        return new MovieInfoStreamService(movieInfoRepository, meterRegistry,
+                historySize, Duration.ZERO, backpressure, bufferSize, 100);
+    }
+
+    private static MovieInfo movieInfo(String movieInfoId){
+        return new MovieInfo(movieInfoId, "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerializedEmitterTest {
+
+    static final int THREADS = 16;
+    static final int EMISSIONS_PER_THREAD = 2_000;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentEmissionsAreNeitherLostNorReordered() throws InterruptedException {
+        Sinks.Many<Long> sink = Sinks.many().multicast().onBackpressureBuffer(THREADS * EMISSIONS_PER_THREAD);
+        var sequence = new AtomicLong();
+        var emitter = new SerializedEmitter<>("test", meterRegistry, List.of(sink));
+
+        List<Long> received = new ArrayList<>();
+        sink.asFlux().subscribe(received::add);
+
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < EMISSIONS_PER_THREAD; i++) {
+                    emitter.emit(sequence::incrementAndGet);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * EMISSIONS_PER_THREAD, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i + 1, received.get(i));
+        }
+        assertEquals(THREADS * EMISSIONS_PER_THREAD, meterRegistry.get("movieinfo.sink.emitted").counter().count());
+        assertEquals(0.0, meterRegistry.get("movieinfo.sink.emit.failures").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+        assertEquals(0.0, meterRegistry.get("movieinfo.sink.pending").gauge().value());
+    }
+
+    @Test
+    void failedEmissionsAreCounted() {
+        Sinks.Many<String> sink = Sinks.many().multicast().directBestEffort();
+        var emitter = new SerializedEmitter<>("test", meterRegistry, List.of(sink));
+
+        emitter.emit("no subscribers");
+        sink.tryEmitComplete();
+        emitter.emit("terminated");
+
+        assertEquals(1.0, meterRegistry.get("movieinfo.sink.emit.failures")
+                .tag("result", "FAIL_ZERO_SUBSCRIBER").counter().count());
+        assertEquals(1.0, meterRegistry.get("movieinfo.sink.emit.failures")
+                .tag("result", "FAIL_TERMINATED").counter().count());
+        assertEquals(0.0, meterRegistry.get("movieinfo.sink.emitted").counter().count());
+    }
+}
@@ -0,0 +1,42 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Domain fixtures shared by the benchmarks, shaped like the payloads movie-info-service and movies-review-service
+ * return.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static MovieInfo movieInfo(String movieInfoId) {
+        return new MovieInfo(movieInfoId, "Batman Begins " + movieInfoId, 2005,
+                List.of("Christian Bale", "Michael Caine", "Liam Neeson"), LocalDate.parse("2005-06-15"));
+    }
+
+    static List<Review> reviews(String movieInfoId, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Review(movieInfoId + "-" + i, Long.valueOf(movieInfoId),
+                        "Awesome Movie, watched it " + i + " times", 5.0 + (i % 50) / 10.0))
+                .collect(Collectors.toList());
+    }
+
+    static Movie movie(String movieInfoId, int reviewCount) {
+        return new Movie(movieInfo(movieInfoId), reviews(movieInfoId, reviewCount));
+    }
+
+    static List<String> movieIds(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+    }
+}
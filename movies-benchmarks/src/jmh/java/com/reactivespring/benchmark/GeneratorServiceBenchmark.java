@@ -0,0 +1,43 @@
+package com.reactivespring.benchmark;
+
+import com.learnreactiveprogramming.service.FluxAndMonoGeneratorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The synchronous chains of {@link FluxAndMonoGeneratorService} as they are, log() operators included.
+ * The merge variants are left out, they mostly wait for delayElements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratorServiceBenchmark {
+
+    FluxAndMonoGeneratorService service = new FluxAndMonoGeneratorService();
+
+    @Benchmark
+    public Long namesFluxFlatmap() {
+        return service.namesFluxFlatmap(3).count().block();
+    }
+
+    @Benchmark
+    public Long namesFluxTransform() {
+        return service.namesFluxTransform(3).count().block();
+    }
+
+    @Benchmark
+    public Long exploreConcat() {
+        return service.exploreConcat().count().block();
+    }
+
+    @Benchmark
+    public Long exploreZip() {
+        return service.exploreZip().count().block();
+    }
+}
@@ -0,0 +1,125 @@
+package com.reactivespring.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Jackson encoding and decoding of the domain types movies-service exchanges with its backends and its callers,
+ * with an ObjectMapper set up like the one Spring Boot hands to the WebFlux codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonCodecBenchmark {
+
+    private static final TypeReference<List<Review>> REVIEW_LIST = new TypeReference<>() {};
+
+    @Param({"2", "100"})
+    int reviewCount;
+
+    ObjectMapper objectMapper;
+    Jackson2JsonEncoder encoder;
+    DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    MovieInfo movieInfo;
+    List<Review> reviews;
+    Movie movie;
+    List<Movie> movies;
+
+    byte[] movieInfoJson;
+    byte[] reviewsJson;
+    byte[] movieJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        encoder = new Jackson2JsonEncoder(objectMapper);
+
+        movieInfo = BenchmarkData.movieInfo("1");
+        reviews = BenchmarkData.reviews("1", reviewCount);
+        movie = BenchmarkData.movie("1", reviewCount);
+        movies = BenchmarkData.movieIds(10).stream()
+                .map(movieId -> BenchmarkData.movie(movieId, reviewCount))
+                .collect(Collectors.toList());
+
+        movieInfoJson = objectMapper.writeValueAsBytes(movieInfo);
+        reviewsJson = objectMapper.writeValueAsBytes(reviews);
+        movieJson = objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public byte[] encodeMovieInfo() throws IOException {
+        return objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public MovieInfo decodeMovieInfo() throws IOException {
+        return objectMapper.readValue(movieInfoJson, MovieInfo.class);
+    }
+
+    @Benchmark
+    public byte[] encodeReviews() throws IOException {
+        return objectMapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public List<Review> decodeReviews() throws IOException {
+        return objectMapper.readValue(reviewsJson, REVIEW_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeMovie() throws IOException {
+        return objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public Movie decodeMovie() throws IOException {
+        return objectMapper.readValue(movieJson, Movie.class);
+    }
+
+    /**
+     * What /v1/movies/stream writes: one buffer per movie through the WebFlux encoder.
+     */
+    @Benchmark
+    public long encodeMoviesNdjson() {
+        return encoder.encode(Flux.fromIterable(movies), bufferFactory, ResolvableType.forClass(Movie.class),
+                        MediaType.APPLICATION_NDJSON, Map.of())
+                .map(this::readableAndRelease)
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    private long readableAndRelease(DataBuffer dataBuffer) {
+        long readable = dataBuffer.readableByteCount();
+        DataBufferUtils.release(dataBuffer);
+        return readable;
+    }
+}
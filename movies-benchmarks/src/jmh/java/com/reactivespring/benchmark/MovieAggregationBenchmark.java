@@ -0,0 +1,115 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.config.MovieFetchStrategy;
+import com.reactivespring.controller.MoviesController;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregation in {@link MoviesController} against clients answering from memory, so that only the
+ * operator chains joining movie info and reviews are measured, not the network or the backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovieAggregationBenchmark {
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    MovieFetchStrategy fetchStrategy;
+
+    @Param({"2", "50"})
+    int reviewCount;
+
+    @Param({"10", "100"})
+    int movieCount;
+
+    MoviesController moviesController;
+
+    List<String> movieIds;
+
+    @Setup
+    public void setUp() {
+        movieIds = BenchmarkData.movieIds(movieCount);
+        Map<String, MovieInfo> movieInfos = movieIds.stream()
+                .collect(Collectors.toMap(Function.identity(), BenchmarkData::movieInfo));
+        Map<String, List<Review>> reviews = movieIds.stream()
+                .collect(Collectors.toMap(Function.identity(), movieId -> BenchmarkData.reviews(movieId, reviewCount)));
+
+        moviesController = new MoviesController();
+        ReflectionTestUtils.setField(moviesController, "moviesInfoRestClient", new StubMoviesInfoRestClient(movieInfos));
+        ReflectionTestUtils.setField(moviesController, "reviewsRestClient", new StubReviewsRestClient(reviews));
+        ReflectionTestUtils.setField(moviesController, "fetchStrategy", fetchStrategy);
+    }
+
+    @Benchmark
+    public Movie retrieveMovieById() {
+        return moviesController.retrieveMovieById("1", null, null, "recent").block();
+    }
+
+    @Benchmark
+    public List<Movie> retrieveMoviesByIds() {
+        return moviesController.retrieveMoviesByIds(movieIds).collectList().block();
+    }
+
+    static class StubMoviesInfoRestClient extends MoviesInfoRestClient {
+
+        private final Map<String, MovieInfo> movieInfos;
+
+        StubMoviesInfoRestClient(Map<String, MovieInfo> movieInfos) {
+            this.movieInfos = movieInfos;
+        }
+
+        @Override
+        public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+            return Mono.justOrEmpty(movieInfos.get(movieId));
+        }
+
+        @Override
+        public Flux<MovieInfo> retrieveMovieInfos(List<String> movieIds) {
+            return Flux.fromIterable(movieIds)
+                    .filter(movieInfos::containsKey)
+                    .map(movieInfos::get);
+        }
+    }
+
+    static class StubReviewsRestClient extends ReviewsRestClient {
+
+        private final Map<String, List<Review>> reviews;
+
+        StubReviewsRestClient(Map<String, List<Review>> reviews) {
+            this.reviews = reviews;
+        }
+
+        @Override
+        public Flux<Review> retrieveReviews(String movieId) {
+            return Flux.fromIterable(reviews.getOrDefault(movieId, List.of()));
+        }
+
+        @Override
+        public Mono<Map<String, List<Review>>> retrieveReviewsByMovieIds(List<String> movieIds) {
+            return Mono.fromSupplier(() -> movieIds.stream()
+                    .filter(reviews::containsKey)
+                    .collect(Collectors.toMap(Function.identity(), reviews::get)));
+        }
+    }
+}
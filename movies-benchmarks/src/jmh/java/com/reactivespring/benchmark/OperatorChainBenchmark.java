@@ -0,0 +1,85 @@
+package com.reactivespring.benchmark;
+
+import com.learnreactiveprogramming.service.FluxAndMonoGeneratorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * flatMap, concatMap and mergeSequential over the map, filter and splitString chain of
+ * {@link FluxAndMonoGeneratorService}, for a configurable number of names, with the inner publishers either
+ * completing synchronously or hopping to another thread. The service's own async variants wait for random delays
+ * of up to a second, which would be all these benchmarks measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OperatorChainBenchmark {
+
+    private static final List<String> NAMES = List.of("alex", "ben", "choice");
+
+    @Param({"3", "1000"})
+    int nameCount;
+
+    @Param({"sync", "publishOn"})
+    String inner;
+
+    FluxAndMonoGeneratorService service = new FluxAndMonoGeneratorService();
+
+    List<String> names;
+
+    @Setup
+    public void setUp() {
+        names = IntStream.range(0, nameCount)
+                .mapToObj(i -> NAMES.get(i % NAMES.size()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Long flatMap() {
+        return upperCaseLongNames()
+                .flatMap(this::splitString)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long concatMap() {
+        return upperCaseLongNames()
+                .concatMap(this::splitString)
+                .count()
+                .block();
+    }
+
+    // Flux.mergeSequential applied per element, as in exploreMergeSequential
+    @Benchmark
+    public Long mergeSequential() {
+        return upperCaseLongNames()
+                .flatMapSequential(this::splitString)
+                .count()
+                .block();
+    }
+
+    private Flux<String> upperCaseLongNames() {
+        return Flux.fromIterable(names)
+                .map(String::toUpperCase)
+                .filter(name -> name.length() > 3);
+    }
+
+    private Flux<String> splitString(String name) {
+        Flux<String> characters = service.splitString(name);
+        return "sync".equals(inner) ? characters : characters.publishOn(Schedulers.parallel());
+    }
+}
@@ -0,0 +1,61 @@
+package com.reactivespring.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates movie infos 1..movies and their reviews through the backends' own APIs, so that validation, indexes and
+ * the review stats are the same as in production. The ids are numeric because reviews refer to movies by a Long.
+ */
+public class DataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final int CONCURRENCY = 32;
+
+    private final WebClient webClient;
+
+    public DataSeeder(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    public void seed(String movieInfoUrl, String reviewsUrl, int movies, int reviewsPerMovie) {
+        log.info("Seeding {} movies with {} reviews each", movies, reviewsPerMovie);
+        Flux.range(1, movies)
+                .flatMap(movieId -> post(movieInfoUrl + "/v1/movieInfos", movieInfo(movieId))
+                        .thenMany(Flux.range(0, reviewsPerMovie))
+                        .concatMap(i -> post(reviewsUrl + "/v1/reviews", review(movieId, i))), CONCURRENCY)
+                .then()
+                .block(Duration.ofMinutes(10));
+    }
+
+    static Map<String, Object> movieInfo(int movieId) {
+        return Map.of("movieInfoId", String.valueOf(movieId),
+                "name", "Movie " + movieId,
+                "year", 1950 + movieId % 70,
+                "cast", List.of("Actor " + movieId, "Actor " + (movieId + 1)),
+                "releaseDate", (1950 + movieId % 70) + "-06-15");
+    }
+
+    static Map<String, Object> review(int movieId, int i) {
+        return Map.of("movieInfoId", movieId,
+                "comment", "Review " + i + " of movie " + movieId,
+                "rating", (double) ((movieId + i) % 10));
+    }
+
+    private Mono<Void> post(String url, Map<String, Object> body) {
+        return webClient.post()
+                .uri(url)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+}
@@ -0,0 +1,47 @@
+package com.reactivespring.loadtest;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+import java.io.IOException;
+
+/**
+ * A mongod for the backends, downloaded and started by flapdoodle like the one the services' tests run against.
+ */
+public class EmbeddedMongo implements AutoCloseable {
+
+    private final MongodExecutable executable;
+    private final MongodProcess process;
+    private final int port;
+
+    private EmbeddedMongo(MongodExecutable executable, MongodProcess process, int port) {
+        this.executable = executable;
+        this.process = process;
+        this.port = port;
+    }
+
+    public static EmbeddedMongo start(String version) throws IOException {
+        int port = Network.getFreeServerPort();
+        MongodConfig config = MongodConfig.builder()
+                .version(Version.Main.valueOf(version))
+                .net(new Net(port, Network.localhostIsIPv6()))
+                .build();
+        MongodExecutable executable = MongodStarter.getDefaultInstance().prepare(config);
+        return new EmbeddedMongo(executable, executable.start(), port);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        process.stop();
+        executable.stop();
+    }
+}
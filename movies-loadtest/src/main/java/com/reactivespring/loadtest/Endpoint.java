@@ -0,0 +1,55 @@
+package com.reactivespring.loadtest;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The movies-service requests the load generator picks from, each identified in the report and in
+ * loadtest.endpoints by its name.
+ */
+public enum Endpoint {
+
+    MOVIE("movie"),
+    SUMMARY("summary"),
+    TOP_REVIEWS("topReviews"),
+    BULK("bulk");
+
+    private final String name;
+
+    Endpoint(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static Endpoint fromName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.name.equalsIgnoreCase(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint " + name + ", expected one of "
+                        + Arrays.stream(values()).map(Endpoint::getName).collect(Collectors.joining(", "))));
+    }
+
+    /**
+     * The path and query of a request to this endpoint, for movie ids drawn from movieIds.
+     */
+    public String uri(IntSupplier movieIds, int bulkSize) {
+        switch (this) {
+            case SUMMARY:
+                return "/v1/movies/" + movieIds.getAsInt() + "?view=summary";
+            case TOP_REVIEWS:
+                return "/v1/movies/" + movieIds.getAsInt() + "?reviewsLimit=3&reviewsSort=rating";
+            case BULK:
+                return "/v1/movies?ids=" + IntStream.range(0, bulkSize)
+                        .map(i -> movieIds.getAsInt())
+                        .mapToObj(String::valueOf)
+                        .collect(Collectors.joining(","));
+            default:
+                return "/v1/movies/" + movieIds.getAsInt();
+        }
+    }
+}
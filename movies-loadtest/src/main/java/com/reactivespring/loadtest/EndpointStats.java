@@ -0,0 +1,90 @@
+package com.reactivespring.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the measured requests to one endpoint. Latencies are recorded in microseconds and
+ * reported in milliseconds.
+ */
+public class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Endpoint endpoint;
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        latencies.recordValue(micros(latencyNanos));
+        successes.increment();
+    }
+
+    // errors count towards the latency too, a timeout is as slow as the caller experienced it
+    public void recordError(long latencyNanos) {
+        latencies.recordValue(micros(latencyNanos));
+        errors.increment();
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public static void printHeader(PrintStream out) {
+        out.printf("%-12s %10s %8s %10s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "mean ms");
+    }
+
+    public void print(PrintStream out, Duration measured) {
+        long requests = getSuccesses() + getErrors();
+        out.printf("%-12s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.getName(), requests, getErrors(), requests / (measured.toMillis() / 1000.0),
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()), latencies.getMean() / 1000.0);
+    }
+
+    /**
+     * Writes the full percentile distribution as &lt;endpoint&gt;.hgrm, which the HdrHistogram plotter reads.
+     */
+    public Path writeDistribution(Path reportDir) throws IOException {
+        Path file = reportDir.resolve(endpoint.getName() + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+        return file;
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
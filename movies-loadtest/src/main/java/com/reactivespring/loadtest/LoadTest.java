@@ -0,0 +1,121 @@
+package com.reactivespring.loadtest;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts movie-info-service and movies-review-service against an embedded Mongo, or WireMock stubs in their place,
+ * starts movies-service against them, and drives an open-model load at movies-service. Prints throughput and
+ * latency percentiles per endpoint and writes each endpoint's latency histogram to the report directory.
+ */
+public class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String DATABASE = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        log.info("Load test with {}", config);
+        Files.createDirectories(config.getReportDir());
+
+        WebClient adminClient = WebClient.create();
+        Deque<AutoCloseable> started = new ArrayDeque<>();
+        try {
+            String movieInfoUrl;
+            String reviewsUrl;
+            List<String> moviesServiceArgs = new ArrayList<>();
+            if (config.getMode() == LoadTestConfig.Mode.EMBEDDED) {
+                EmbeddedMongo mongo = push(started, EmbeddedMongo.start(config.getMongoVersion()));
+                List<String> mongoArgs = List.of("--spring.data.mongodb.host=localhost",
+                        "--spring.data.mongodb.port=" + mongo.getPort(),
+                        "--spring.data.mongodb.database=" + DATABASE);
+                ServiceProcess movieInfoService = push(started, ServiceProcess.start("movie-info-service",
+                        config.jar("movie-info-service"), mongoArgs, config.getReportDir()));
+                ServiceProcess reviewService = push(started, ServiceProcess.start("movies-review-service",
+                        config.jar("movies-review-service"), mongoArgs, config.getReportDir()));
+                movieInfoService.awaitHealthy(adminClient, STARTUP_TIMEOUT);
+                reviewService.awaitHealthy(adminClient, STARTUP_TIMEOUT);
+                movieInfoUrl = movieInfoService.getUrl();
+                reviewsUrl = reviewService.getUrl();
+                new DataSeeder(adminClient).seed(movieInfoUrl, reviewsUrl, config.getMovies(), config.getReviewsPerMovie());
+            } else {
+                StubBackends backends = push(started, StubBackends.start(config));
+                movieInfoUrl = backends.getUrl();
+                reviewsUrl = backends.getUrl();
+                // the stubs have no change feed to invalidate the cache from
+                moviesServiceArgs.add("--restClient.movieInfoCache.invalidationEvents=false");
+            }
+
+            moviesServiceArgs.add("--restClient.moviesInfoUrl=" + movieInfoUrl + "/v1/movieInfos");
+            moviesServiceArgs.add("--restClient.reviewsUrl=" + reviewsUrl + "/v1/reviews");
+            moviesServiceArgs.addAll(config.getMoviesServiceArgs());
+            ServiceProcess moviesService = push(started, ServiceProcess.start("movies-service",
+                    config.jar("movies-service"), moviesServiceArgs, config.getReportDir()));
+            moviesService.awaitHealthy(adminClient, STARTUP_TIMEOUT);
+
+            Map<Endpoint, EndpointStats> stats = new OpenLoadGenerator(loadClient(moviesService.getUrl(), config), config).run();
+            report(stats, config);
+        } finally {
+            while (!started.isEmpty()) {
+                try {
+                    started.pop().close();
+                } catch (Exception e) {
+                    log.warn("Shutdown failed : {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A client with enough connections that the pool doesn't cap the arrival rate. Requests beyond the pool wait
+     * for a connection, and that wait shows up in the latencies as it would for real callers.
+     */
+    private static WebClient loadClient(String baseUrl, LoadTestConfig config) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(config.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(config.getRequestTimeout())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000);
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private static void report(Map<Endpoint, EndpointStats> stats, LoadTestConfig config) throws Exception {
+        System.out.println();
+        System.out.printf("%d req/s offered for %s, %s%n", config.getRate(), config.getDuration(), config.getMode());
+        EndpointStats.printHeader(System.out);
+        for (EndpointStats endpointStats : stats.values()) {
+            endpointStats.print(System.out, config.getDuration());
+        }
+        System.out.println();
+        for (EndpointStats endpointStats : stats.values()) {
+            Path distribution = endpointStats.writeDistribution(config.getReportDir());
+            log.info("Latency distribution of {} written to {}", endpointStats.getEndpoint().getName(), distribution);
+        }
+    }
+
+    private static <T extends AutoCloseable> T push(Deque<AutoCloseable> started, T closeable) {
+        started.push(closeable);
+        return closeable;
+    }
+}
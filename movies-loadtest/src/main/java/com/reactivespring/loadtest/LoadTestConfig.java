@@ -0,0 +1,162 @@
+package com.reactivespring.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Settings of a load test run, read from loadtest.* system properties, which the Gradle task fills from
+ * -Ploadtest.* project properties.
+ */
+public class LoadTestConfig {
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+)(ms|s|m)");
+
+    public enum Mode {
+        // all three services, the backends on embedded Mongo
+        EMBEDDED,
+        // movies-service only, against WireMock stubs of the backends
+        WIREMOCK
+    }
+
+    private final Mode mode = Mode.valueOf(property("mode", "embedded").toUpperCase());
+
+    // requests started per second, whether or not earlier ones have completed
+    private final int rate = Integer.parseInt(property("rate", "200"));
+    private final Duration warmup = duration(property("warmup", "10s"));
+    private final Duration duration = duration(property("duration", "60s"));
+
+    private final int movies = Integer.parseInt(property("movies", "1000"));
+    private final int reviewsPerMovie = Integer.parseInt(property("reviewsPerMovie", "5"));
+    private final double zipfExponent = Double.parseDouble(property("zipfExponent", "1.0"));
+    private final int bulkSize = Integer.parseInt(property("bulkSize", "10"));
+    // endpoint:weight pairs
+    private final Map<Endpoint, Integer> endpointWeights = weights(property("endpoints", "movie:80,summary:10,topReviews:5,bulk:5"));
+
+    private final int maxConnections = Integer.parseInt(property("maxConnections", "1000"));
+    private final Duration requestTimeout = duration(property("requestTimeout", "30s"));
+    private final Duration stubLatency = duration(property("stubLatency", "5ms"));
+    private final String mongoVersion = property("mongoVersion", "V4_0");
+    private final List<String> moviesServiceArgs = arguments(property("moviesServiceArgs", ""));
+
+    private final Path reportDir = Path.of(property("reportDir", "build/reports/loadtest"));
+
+    public Path jar(String service) {
+        String jar = System.getProperty("loadtest.jar." + service);
+        if (jar == null) {
+            throw new IllegalStateException("loadtest.jar." + service + " is not set, run the load test through the loadTest Gradle task");
+        }
+        return Path.of(jar);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public int getMovies() {
+        return movies;
+    }
+
+    public int getReviewsPerMovie() {
+        return reviewsPerMovie;
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public int getBulkSize() {
+        return bulkSize;
+    }
+
+    public Map<Endpoint, Integer> getEndpointWeights() {
+        return endpointWeights;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public Duration getStubLatency() {
+        return stubLatency;
+    }
+
+    public String getMongoVersion() {
+        return mongoVersion;
+    }
+
+    public List<String> getMoviesServiceArgs() {
+        return moviesServiceArgs;
+    }
+
+    public Path getReportDir() {
+        return reportDir;
+    }
+
+    @Override
+    public String toString() {
+        return "mode=" + mode + ", rate=" + rate + "/s, warmup=" + warmup + ", duration=" + duration
+                + ", movies=" + movies + ", reviewsPerMovie=" + reviewsPerMovie + ", zipfExponent=" + zipfExponent
+                + ", endpoints=" + endpointWeights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    static Duration duration(String value) {
+        Matcher matcher = DURATION.matcher(value.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid duration " + value + ", expected e.g. 500ms, 30s or 2m");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            default:
+                return Duration.ofMinutes(amount);
+        }
+    }
+
+    static Map<Endpoint, Integer> weights(String value) {
+        Map<Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String pair : value.split(",")) {
+            String[] endpointAndWeight = pair.trim().split(":");
+            if (endpointAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid endpoint weight " + pair + ", expected e.g. movie:80");
+            }
+            weights.put(Endpoint.fromName(endpointAndWeight[0]), Integer.parseInt(endpointAndWeight[1]));
+        }
+        return weights;
+    }
+
+    private static List<String> arguments(String value) {
+        return Arrays.stream(value.trim().split("\\s+"))
+                .filter(argument -> !argument.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
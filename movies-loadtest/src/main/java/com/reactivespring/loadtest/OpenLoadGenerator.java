@@ -0,0 +1,128 @@
+package com.reactivespring.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts requests at a constant rate whether or not earlier ones have completed, the way independent users arrive.
+ * A closed loop that waits for each response before sending the next one slows down together with the service and
+ * hides its queueing, so latency here is measured from when a request was due to start, not from when it was sent.
+ */
+public class OpenLoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenLoadGenerator.class);
+
+    private final WebClient webClient;
+    private final LoadTestConfig config;
+    private final ZipfDistribution movieIds;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final AtomicLong inFlight = new AtomicLong();
+
+    public OpenLoadGenerator(WebClient webClient, LoadTestConfig config) {
+        this.webClient = webClient;
+        this.config = config;
+        this.movieIds = new ZipfDistribution(config.getMovies(), config.getZipfExponent());
+
+        Map<Endpoint, Integer> weights = config.getEndpointWeights();
+        endpoints = weights.keySet().toArray(new Endpoint[0]);
+        cumulativeWeights = new int[endpoints.length];
+        int sum = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            sum += weights.get(endpoints[i]);
+            cumulativeWeights[i] = sum;
+            stats.put(endpoints[i], new EndpointStats(endpoints[i]));
+        }
+    }
+
+    /**
+     * Runs the warmup and then the measured period, and waits for the requests still in flight.
+     */
+    public Map<Endpoint, EndpointStats> run() {
+        Random random = new Random();
+        long interval = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + config.getWarmup().toNanos();
+        long end = measureFrom + config.getDuration().toNanos();
+
+        log.info("Warming up for {}", config.getWarmup());
+        boolean measuring = false;
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * interval;
+            if (intendedStart >= end) {
+                break;
+            }
+            if (!measuring && intendedStart >= measureFrom) {
+                measuring = true;
+                log.info("Measuring for {}", config.getDuration());
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = nextEndpoint(random);
+            send(endpoint, endpoint.uri(() -> movieIds.sample(ThreadLocalRandom.current()), config.getBulkSize()),
+                    intendedStart, measuring ? stats.get(endpoint) : null);
+        }
+
+        awaitInFlight(config.getRequestTimeout().plusSeconds(5));
+        return stats;
+    }
+
+    private void send(Endpoint endpoint, String uri, long intendedStart, EndpointStats endpointStats) {
+        inFlight.incrementAndGet();
+        webClient.get()
+                .uri(uri)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                .timeout(config.getRequestTimeout())
+                .subscribe(status -> {
+                    long latency = System.nanoTime() - intendedStart;
+                    if (endpointStats != null) {
+                        if (status.isError()) {
+                            endpointStats.recordError(latency);
+                        } else {
+                            endpointStats.recordSuccess(latency);
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                }, error -> {
+                    if (endpointStats != null) {
+                        endpointStats.recordError(System.nanoTime() - intendedStart);
+                    }
+                    log.debug("{} {} failed : {}", endpoint.getName(), uri, error.toString());
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private Endpoint nextEndpoint(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private void awaitInFlight(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        if (inFlight.get() > 0) {
+            log.warn("{} requests still in flight after {}", inFlight.get(), timeout);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.reactivespring.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One of the services, started from its boot jar in a JVM of its own. movies-service and the backends have domain
+ * classes of the same name, so they cannot share a classpath, and separate JVMs also keep the load generator's
+ * allocations and GC pauses out of the services' latencies.
+ */
+public class ServiceProcess implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceProcess.class);
+
+    private final String name;
+    private final Process process;
+    private final int port;
+    private final Path logFile;
+
+    private ServiceProcess(String name, Process process, int port, Path logFile) {
+        this.name = name;
+        this.process = process;
+        this.port = port;
+        this.logFile = logFile;
+    }
+
+    public static ServiceProcess start(String name, Path jar, List<String> arguments, Path logDir) throws IOException {
+        int port = freePort();
+        Path logFile = logDir.resolve(name + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        // spans would otherwise be reported to a collector that isn't there
+        command.add("--spring.zipkin.enabled=false");
+        // a log line per request costs more than some of the requests themselves
+        command.add("--logging.level.root=warn");
+        command.addAll(arguments);
+
+        log.info("Starting {} on port {}, logging to {}", name, port, logFile);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        return new ServiceProcess(name, process, port, logFile);
+    }
+
+    public void awaitHealthy(WebClient webClient, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see " + logFile);
+            }
+            Boolean healthy = webClient.get()
+                    .uri(getUrl() + "/actuator/health")
+                    .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful()))
+                    .onErrorReturn(false)
+                    .block(Duration.ofSeconds(5));
+            if (Boolean.TRUE.equals(healthy)) {
+                log.info("{} is up", name);
+                return;
+            }
+            sleep(Duration.ofMillis(500));
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + timeout + ", see " + logFile);
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + port;
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(20, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
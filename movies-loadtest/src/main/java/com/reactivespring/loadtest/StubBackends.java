@@ -0,0 +1,89 @@
+package com.reactivespring.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * movie-info-service and movies-review-service replaced by canned responses with a fixed delay, for measuring
+ * movies-service on its own. Every movie id gets the same movie info and reviews.
+ */
+public class StubBackends implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WireMockServer server;
+
+    private StubBackends(WireMockServer server) {
+        this.server = server;
+    }
+
+    public static StubBackends start(LoadTestConfig config) {
+        WireMockServer server = new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(Math.max(50, config.getMaxConnections() / 4))
+                .jettyAcceptQueueSize(config.getMaxConnections()));
+        server.start();
+        StubBackends backends = new StubBackends(server);
+        backends.stub(config);
+        return backends;
+    }
+
+    public String getUrl() {
+        return server.baseUrl();
+    }
+
+    private void stub(LoadTestConfig config) {
+        int delay = (int) config.getStubLatency().toMillis();
+        List<Map<String, Object>> reviews = IntStream.range(0, config.getReviewsPerMovie())
+                .mapToObj(i -> DataSeeder.review(1, i))
+                .collect(Collectors.toList());
+        List<Map<String, Object>> movieInfos = IntStream.rangeClosed(1, config.getBulkSize())
+                .mapToObj(DataSeeder::movieInfo)
+                .collect(Collectors.toList());
+        Map<String, Object> reviewsByMovie = IntStream.rangeClosed(1, config.getBulkSize())
+                .boxed()
+                .collect(Collectors.toMap(String::valueOf, movieId -> reviews));
+
+        server.stubFor(get(urlPathMatching("/v1/movieInfos/[0-9]+"))
+                .willReturn(json(DataSeeder.movieInfo(1), delay)));
+        server.stubFor(post(urlPathEqualTo("/v1/movieInfos/bulk"))
+                .willReturn(json(movieInfos, delay)));
+        server.stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(json(reviews, delay)
+                        .withHeader("X-Total-Count", String.valueOf(reviews.size()))));
+        server.stubFor(post(urlPathEqualTo("/v1/reviews/byMovie"))
+                .willReturn(json(reviewsByMovie, delay)));
+        server.stubFor(get(urlPathEqualTo("/v1/reviews/stats"))
+                .willReturn(json(Map.of("movieInfoId", 1, "count", reviews.size(), "ratingCount", reviews.size(),
+                        "ratingSum", 4.5 * reviews.size(), "histogram", Map.of("4", reviews.size())), delay)));
+    }
+
+    private ResponseDefinitionBuilder json(Object body, int delay) {
+        try {
+            return aResponse()
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(objectMapper.writeValueAsString(body))
+                    .withFixedDelay(delay);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
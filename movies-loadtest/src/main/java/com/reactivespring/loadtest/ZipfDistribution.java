@@ -0,0 +1,39 @@
+package com.reactivespring.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks 1..n with probability proportional to 1 / rank^exponent, so that a few popular movies get most of
+ * the traffic, like they do in production. An exponent of 0 is uniform.
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // binarySearch returns -(insertion point) - 1 for values between two entries
+        int rank = index >= 0 ? index + 1 : -index;
+        return Math.min(rank, cumulative.length);
+    }
+
+    public double probability(int rank) {
+        return rank == 1 ? cumulative[0] : cumulative[rank - 1] - cumulative[rank - 2];
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactivespring.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipfDistributionTest {
+
+    @Test
+    void ranksAreDrawnInProportionToTheirProbability(){
+        var zipf = new ZipfDistribution(100, 1.0);
+        var random = new Random(42);
+        int[] counts = new int[101];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            int rank = zipf.sample(random);
+            assertTrue(rank >= 1 && rank <= 100, "rank " + rank);
+            counts[rank]++;
+        }
+
+        // H(100) ~ 5.187, so rank 1 gets ~19% and rank 2 half of that
+        assertEquals(0.193, zipf.probability(1), 0.001);
+        assertEquals(zipf.probability(1) / 2, zipf.probability(2), 1e-9);
+        assertEquals(zipf.probability(1), counts[1] / (double) samples, 0.01);
+        assertEquals(zipf.probability(2), counts[2] / (double) samples, 0.01);
+        assertTrue(counts[1] > counts[10] && counts[10] > counts[100]);
+    }
+
+    @Test
+    void exponentZeroIsUniform(){
+        var zipf = new ZipfDistribution(4, 0.0);
+
+        for (int rank = 1; rank <= 4; rank++) {
+            assertEquals(0.25, zipf.probability(rank), 1e-9);
+        }
+    }
+}
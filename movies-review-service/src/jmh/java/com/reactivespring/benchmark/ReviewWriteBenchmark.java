@@ -0,0 +1,82 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.MoviesReviewServiceApplication;
+import com.reactivespring.batching.ReviewWriteCoalescer;
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /v1/reviews's write path, one save and stats upsert per review against one insertMany and one stats upsert
+ * per movie for the reviews that arrive together, with concurrentSaves reviews per operation against an embedded
+ * Mongo. A lone save waits the coalescer's maxDelay for company, which is what concurrentSaves = 1 shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReviewWriteBenchmark {
+
+    @Param({"1", "16", "128"})
+    int concurrentSaves;
+
+    ConfigurableApplicationContext context;
+    ReviewRepository reviewRepository;
+    ReviewStatsRepository reviewStatsRepository;
+    ReviewWriteCoalescer reviewWriteCoalescer;
+
+    @Setup
+    public void setUp() {
+        // no local profile, so Spring Boot starts an embedded mongod on a free port
+        context = new SpringApplicationBuilder(MoviesReviewServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.data.mongodb.port=0",
+                        "--spring.sleuth.enabled=false",
+                        "--reviews.writeCoalescing.enabled=true");
+        reviewRepository = context.getBean(ReviewRepository.class);
+        reviewStatsRepository = context.getBean(ReviewStatsRepository.class);
+        reviewWriteCoalescer = context.getBean(ReviewWriteCoalescer.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Review> perRequestSave() {
+        return Flux.range(0, concurrentSaves)
+                .flatMap(i -> reviewRepository.save(review(i))
+                        .flatMap(saved -> reviewStatsRepository.reviewAdded(saved).thenReturn(saved)))
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Review> coalescedSave() {
+        return Flux.range(0, concurrentSaves)
+                .flatMap(i -> reviewWriteCoalescer.save(review(i)))
+                .collectList()
+                .block();
+    }
+
+    private static Review review(int i) {
+        return new Review(null, (long) (i % 10), "Awesome Movie, watched it " + i + " times", 5.0 + i % 5);
+    }
+}
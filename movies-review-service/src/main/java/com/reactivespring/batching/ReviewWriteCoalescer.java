@@ -0,0 +1,167 @@
+package com.reactivespring.batching;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.service.ReviewStatsService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in write-behind for single review inserts. Concurrent saves are queued for at most maxDelay or until
+ * maxBatchSize of them are waiting, then written with one insertMany and one stats upsert per movie, and each
+ * caller's Mono completes with its own review or error. A caller that cancels doesn't take its review out of
+ * the batch.
+ * <p>
+ * Callers complete as soon as their reviews are stored, see {@link ReviewStatsService} for a failed stats upsert.
+ */
+@Component
+@Slf4j
+public class ReviewWriteCoalescer {
+
+    private final ReviewRepository reviewRepository;
+    private final ReviewStatsService reviewStatsService;
+    private final boolean enabled;
+
+    private final DistributionSummary batchSize;
+    private final Timer queueingDelay;
+
+    private FluxSink<PendingWrite> pendingWrites;
+    private Disposable flushes;
+
+    // saves whose callers haven't been answered yet, failed when the pipeline stops
+    private final Set<PendingWrite> unanswered = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+
+    public ReviewWriteCoalescer(ReviewRepository reviewRepository,
+                                ReviewStatsService reviewStatsService,
+                                MeterRegistry meterRegistry,
+                                @Value("${reviews.writeCoalescing.enabled:false}") boolean enabled,
+                                @Value("${reviews.writeCoalescing.maxBatchSize:100}") int maxBatchSize,
+                                @Value("${reviews.writeCoalescing.maxDelay:2ms}") Duration maxDelay,
+                                @Value("${reviews.writeCoalescing.maxConcurrentFlushes:4}") int maxConcurrentFlushes) {
+        this.reviewRepository = reviewRepository;
+        this.reviewStatsService = reviewStatsService;
+        this.enabled = enabled;
+        this.batchSize = DistributionSummary.builder("reviews.write.coalescing.batch.size")
+                .description("Reviews written by one insertMany")
+                .register(meterRegistry);
+        this.queueingDelay = Timer.builder("reviews.write.coalescing.delay")
+                .description("Time a review waited for its batch to be flushed")
+                .register(meterRegistry);
+
+        if (enabled) {
+            // FluxSink serializes saves arriving on different threads
+            this.flushes = Flux.<PendingWrite>create(sink -> this.pendingWrites = sink)
+                    .bufferTimeout(maxBatchSize, maxDelay)
+                    // batches wait here while maxConcurrentFlushes are being written
+                    .onBackpressureBuffer()
+                    .flatMap(this::flush, maxConcurrentFlushes)
+                    .doFinally(signalType -> stop())
+                    .subscribe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<Review> save(Review review) {
+        if (!enabled) {
+            return Mono.error(new IllegalStateException("Review write coalescing is disabled"));
+        }
+        return Mono.create(sink -> {
+            PendingWrite write = new PendingWrite(review, sink, System.nanoTime());
+            unanswered.add(write);
+            // checked after adding, so that either this or stop() fails the write
+            if (stopped) {
+                unanswered.remove(write);
+                sink.error(stoppedException());
+                return;
+            }
+            pendingWrites.next(write);
+        });
+    }
+
+    private Mono<Void> flush(List<PendingWrite> batch) {
+        long flushStart = System.nanoTime();
+        batch.forEach(write -> queueingDelay.record(flushStart - write.enqueuedAt, TimeUnit.NANOSECONDS));
+        batchSize.record(batch.size());
+
+        List<Review> reviews = batch.stream().map(write -> write.review).collect(Collectors.toList());
+        return Mono.defer(() -> reviewRepository.insertReviews(reviews))
+                .onErrorResume(ex -> {
+                    log.error("Writing a batch of {} reviews failed : {}", batch.size(), ex.getMessage());
+                    batch.forEach(write -> write.sink.error(ex));
+                    unanswered.removeAll(batch);
+                    return Mono.empty();
+                })
+                .flatMap(errors -> reviewStatsService.reviewsAdded(complete(batch, errors)));
+    }
+
+    // answers every caller of the batch, returns the reviews that were stored
+    private List<Review> complete(List<PendingWrite> batch, Map<Integer, String> errors) {
+        List<Review> inserted = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            String error = errors.get(i);
+            if (error == null) {
+                inserted.add(write.review);
+                write.sink.success(write.review);
+            } else {
+                write.sink.error(new ReviewDataException(error));
+            }
+        }
+        unanswered.removeAll(batch);
+        return inserted;
+    }
+
+    private void stop() {
+        stopped = true;
+        unanswered.forEach(write -> write.sink.error(stoppedException()));
+        unanswered.clear();
+    }
+
+    private static IllegalStateException stoppedException() {
+        return new IllegalStateException("Review write coalescing has been shut down");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushes != null) {
+            flushes.dispose();
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final Review review;
+        private final MonoSink<Review> sink;
+        private final long enqueuedAt;
+
+        PendingWrite(Review review, MonoSink<Review> sink, long enqueuedAt) {
+            this.review = review;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.reactivespring.config;
+
+import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import com.reactivespring.service.ReviewStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds the review stats of the reviews stored before the stats existed, on the first start that finds reviews
+ * but no stats at all. The stats read as partial until it is done. Later drift is repaired with
+ * POST /v1/reviews/stats/rebuild.
+ */
+@Configuration
+@Slf4j
+public class ReviewStatsBackfillConfig {
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewStatsRepository reviewStatsRepository;
+
+    @Autowired
+    private ReviewStatsService reviewStatsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Mono.zip(reviewStatsRepository.count(), reviewRepository.count())
+                .filter(counts -> counts.getT1() == 0 && counts.getT2() > 0)
+                .flatMap(counts -> {
+                    log.info("Backfilling the review stats from {} reviews", counts.getT2());
+                    return reviewStatsService.rebuild();
+                })
+                .subscribe(movies -> { }, ex -> log.error("Backfilling the review stats failed : {}", ex.getMessage()));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Min;
@@ -14,6 +15,9 @@ import javax.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+// both also serve lookups by movieInfoId alone, so there is no separate single-field index
+@CompoundIndex(name = "movieInfoId_rating", def = "{'movieInfoId': 1, 'rating': -1}")
+@CompoundIndex(name = "movieInfoId_reviewId", def = "{'movieInfoId': 1, '_id': 1}")
 public class Review {
 
     @Id
@@ -0,0 +1,17 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A line of a bulk ingest that was not stored, numbered from 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewIngestFailure {
+
+    private long line;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingest. Only the first failures are listed, failed counts them all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewIngestResult {
+
+    private long inserted;
+    private long failed;
+    private List<ReviewIngestFailure> failures = new ArrayList<>();
+    private boolean failuresTruncated;
+}
@@ -0,0 +1,36 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Map;
+
+/**
+ * Review aggregates for one movie, kept up to date as reviews are added, updated and deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class ReviewStats {
+
+    @Id
+    private Long movieInfoId;
+    private long count;
+    // reviews that have a rating, the average is over these only
+    private long ratingCount;
+    private double ratingSum;
+    // whole-number rating bucket -> number of reviews
+    private Map<String, Long> histogram;
+
+    public static ReviewStats empty(Long movieInfoId) {
+        return new ReviewStats(movieInfoId, 0, 0, 0.0, Map.of());
+    }
+
+    public Double getAverageRating() {
+        return ratingCount == 0 ? null : ratingSum / ratingCount;
+    }
+}
@@ -1,5 +1,6 @@
 package com.reactivespring.exceptionhandler;
 
+import com.reactivespring.exception.InvalidContinuationTokenException;
 import com.reactivespring.exception.ReviewDataException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
@@ -22,7 +23,7 @@ public class GlobalErrorHandler implements ErrorWebExceptionHandler {
         DataBufferFactory dataBufferFactory = exchange.getResponse().bufferFactory();
         DataBuffer errorMessage = dataBufferFactory.wrap(ex.getMessage().getBytes());
 
-        if(ex instanceof ReviewDataException){
+        if(ex instanceof ReviewDataException || ex instanceof InvalidContinuationTokenException){
             exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
             return exchange.getResponse().writeWith(Mono.just(errorMessage));
         }
@@ -0,0 +1,53 @@
+package com.reactivespring.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gives up on a request once the time movies-service sent in X-Request-Timeout has passed. Cancelling the
+ * handler cancels its Mongo queries too, so their cursors are closed instead of read for nobody.
+ */
+@Component
+@Slf4j
+public class DeadlineWebFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration timeout = timeout(exchange.getRequest().getHeaders().getFirst(HEADER));
+        if (timeout == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .timeout(timeout)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    log.warn("Request {} exceeded its deadline of {}ms", exchange.getRequest().getPath(), timeout.toMillis());
+                    if (exchange.getResponse().isCommitted()) {
+                        return Mono.error(ex);
+                    }
+                    exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    private static Duration timeout(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException ex) {
+            log.debug("Ignoring malformed {} header : {}", HEADER, header);
+            return null;
+        }
+    }
+}
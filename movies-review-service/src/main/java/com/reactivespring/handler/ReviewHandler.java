@@ -1,14 +1,31 @@
 package com.reactivespring.handler;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.batching.ReviewWriteCoalescer;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewIngestFailure;
+import com.reactivespring.domain.ReviewIngestResult;
+import com.reactivespring.domain.ReviewStats;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
 import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import com.reactivespring.service.ReviewStatsService;
+import com.reactivespring.util.ContinuationToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
@@ -16,6 +33,10 @@ import reactor.core.publisher.Mono;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -24,33 +45,169 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewHandler {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_TOP_REVIEWS = 10;
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    // splits on \n and \r\n as the body arrives
+    private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes();
+
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ReviewStatsRepository reviewStatsRepository;
+
+    @Autowired
+    private ReviewStatsService reviewStatsService;
+
     @Autowired
     private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReviewWriteCoalescer reviewWriteCoalescer;
+
+    @Value("${reviews.ingest.batchSize:500}")
+    private int ingestBatchSize;
+
+    @Value("${reviews.ingest.concurrency:4}")
+    private int ingestConcurrency;
+
+    @Value("${reviews.ingest.maxReportedFailures:1000}")
+    private int ingestMaxReportedFailures;
+
     public Mono<ServerResponse> addReview(ServerRequest request) {
         return request.bodyToMono(Review.class)
                 .doOnNext(this::validate)
-                .flatMap(reviewRepository::save)
+                .flatMap(this::saveReview)
                 .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
     }
 
+    private Mono<Review> saveReview(Review review) {
+        if(reviewWriteCoalescer.isEnabled()) {
+            return reviewWriteCoalescer.save(review);
+        }
+        return reviewRepository.save(review)
+                .flatMap(saved -> reviewStatsService.reviewAdded(saved).thenReturn(saved));
+    }
+
     private void validate(Review review) {
         Set<ConstraintViolation<Review>> constraintViolations = validator.validate(review);
         log.info("constraints violation : {}", constraintViolations);
         if(constraintViolations.size() > 0) {
-            String errorMessage = constraintViolations.stream().map(ConstraintViolation::getMessage)
-                    .sorted()
-                    .collect(Collectors.joining(","));
-            throw new ReviewDataException(errorMessage);
+            throw new ReviewDataException(errorMessage(constraintViolations));
         }
 
     }
 
+    private static String errorMessage(Set<ConstraintViolation<Review>> constraintViolations) {
+        return constraintViolations.stream().map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Stores the NDJSON reviews of the request body in insertMany batches while it is still being received. At most
+     * concurrency batches are parsed or being written at a time, the rest of the body is only read as they complete.
+     * Lines that don't parse, validate or insert are reported in the result and don't stop the others.
+     */
+    public Mono<ServerResponse> ingestReviews(ServerRequest request) {
+        Flux<String> lines = LINE_DECODER.decode(request.body(BodyExtractors.toDataBuffers()),
+                ResolvableType.forClass(String.class), null, Map.of());
+
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parseLine(line.getT1() + 1, line.getT2()))
+                .buffer(ingestBatchSize)
+                .flatMapSequential(this::ingestBatch, ingestConcurrency)
+                .reduceWith(ReviewIngestResult::new, this::addBatchResult)
+                .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    private IngestLine parseLine(long number, String line) {
+        Review review;
+        try {
+            review = objectMapper.readValue(line, Review.class);
+        } catch (JsonProcessingException e) {
+            return IngestLine.failed(number, "invalid review JSON : " + e.getOriginalMessage());
+        }
+        if(review == null) {
+            return IngestLine.failed(number, "invalid review JSON : null");
+        }
+        Set<ConstraintViolation<Review>> constraintViolations = validator.validate(review);
+        if(!constraintViolations.isEmpty()) {
+            return IngestLine.failed(number, errorMessage(constraintViolations));
+        }
+        return new IngestLine(number, review, null);
+    }
+
+    private Mono<ReviewIngestResult> ingestBatch(List<IngestLine> batch) {
+        var result = new ReviewIngestResult();
+        List<IngestLine> valid = new ArrayList<>();
+        batch.forEach(line -> {
+            if(line.error == null) {
+                valid.add(line);
+            } else {
+                result.getFailures().add(new ReviewIngestFailure(line.number, line.error));
+            }
+        });
+        if(valid.isEmpty()) {
+            result.setFailed(result.getFailures().size());
+            return Mono.just(result);
+        }
+
+        List<Review> reviews = valid.stream().map(line -> line.review).collect(Collectors.toList());
+        return reviewRepository.insertReviews(reviews)
+                .flatMap(errors -> {
+                    List<Review> inserted = new ArrayList<>();
+                    for (int i = 0; i < valid.size(); i++) {
+                        String error = errors.get(i);
+                        if(error == null) {
+                            inserted.add(reviews.get(i));
+                        } else {
+                            result.getFailures().add(new ReviewIngestFailure(valid.get(i).number, error));
+                        }
+                    }
+                    result.setInserted(inserted.size());
+                    result.setFailed(result.getFailures().size());
+                    result.getFailures().sort(Comparator.comparingLong(ReviewIngestFailure::getLine));
+                    // the batch is stored, a failed stats update mustn't fail the ingest and have it re-sent
+                    return reviewStatsService.reviewsAdded(inserted).thenReturn(result);
+                });
+    }
+
+    private ReviewIngestResult addBatchResult(ReviewIngestResult total, ReviewIngestResult batch) {
+        total.setInserted(total.getInserted() + batch.getInserted());
+        total.setFailed(total.getFailed() + batch.getFailed());
+        for (ReviewIngestFailure failure : batch.getFailures()) {
+            if(total.getFailures().size() < ingestMaxReportedFailures) {
+                total.getFailures().add(failure);
+            } else {
+                total.setFailuresTruncated(true);
+            }
+        }
+        return total;
+    }
+
     public Mono<ServerResponse> getReviews(ServerRequest serverRequest) {
 
         Optional<String> movieInfoId = serverRequest.queryParam("movieInfoId");
+        Optional<String> limit = serverRequest.queryParam("limit");
+        Optional<String> sort = serverRequest.queryParam("sort");
+        if(sort.isPresent()) {
+            return getTopReviews(movieInfoId.map(Long::valueOf)
+                            .orElseThrow(() -> new ReviewDataException("movieInfoId must be present to sort reviews")),
+                    sort.get(),
+                    limit.map(ReviewHandler::pageSize).orElse(DEFAULT_TOP_REVIEWS));
+        }
+        if(limit.isPresent()) {
+            return getReviewsPage(movieInfoId.map(Long::valueOf).orElse(null),
+                    serverRequest.queryParam("after").map(ContinuationToken::decode).orElse(null),
+                    pageSize(limit.get()));
+        }
         if(movieInfoId.isPresent()) {
             Flux<Review> reviews  = reviewRepository.findReviewsByMovieInfoId(Long.valueOf(movieInfoId.get()));
             return buildReviewResponse(reviews);
@@ -60,10 +217,96 @@ public class ReviewHandler {
 
     }
 
+    private Mono<ServerResponse> getReviewsPage(Long movieInfoId, String afterReviewId, int pageSize) {
+        var pageable = PageRequest.of(0, pageSize, Sort.by("reviewId"));
+        Flux<Review> reviews;
+        if(movieInfoId != null) {
+            reviews = afterReviewId == null
+                    ? reviewRepository.findReviewsByMovieInfoId(movieInfoId, pageable)
+                    : reviewRepository.findReviewsByMovieInfoIdAndReviewIdGreaterThan(movieInfoId, afterReviewId, pageable);
+        } else {
+            reviews = afterReviewId == null
+                    ? reviewRepository.findAllBy(pageable)
+                    : reviewRepository.findByReviewIdGreaterThan(afterReviewId, pageable);
+        }
+
+        return reviews.collectList()
+                .flatMap(page -> {
+                    var response = ServerResponse.ok();
+                    // a short page is the last one
+                    if(page.size() == pageSize) {
+                        response.header(ContinuationToken.HEADER,
+                                ContinuationToken.encode(page.get(page.size() - 1).getReviewId()));
+                    }
+                    return response.bodyValue(page);
+                });
+    }
+
+    /**
+     * The first limit reviews of a movie, most recent or highest rated first, with the movie's total review count
+     * in the X-Total-Count header. Both are answered from the movieInfoId indexes.
+     */
+    private Mono<ServerResponse> getTopReviews(Long movieInfoId, String sort, int limit) {
+        Sort order;
+        if("recent".equalsIgnoreCase(sort)) {
+            // ObjectIds start with their creation time
+            order = Sort.by(Sort.Direction.DESC, "reviewId");
+        } else if("rating".equalsIgnoreCase(sort)) {
+            order = Sort.by(Sort.Direction.DESC, "rating");
+        } else {
+            return Mono.error(new ReviewDataException("sort must be one of recent,rating"));
+        }
+
+        return Mono.zip(reviewRepository.findReviewsByMovieInfoId(movieInfoId, PageRequest.of(0, limit, order)).collectList(),
+                        reviewRepository.countByMovieInfoId(movieInfoId))
+                .flatMap(topReviews -> ServerResponse.ok()
+                        .header(TOTAL_COUNT_HEADER, String.valueOf(topReviews.getT2()))
+                        .bodyValue(topReviews.getT1()));
+    }
+
+    private static int pageSize(String limit) {
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(limit), MAX_PAGE_SIZE));
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("limit must be a number");
+        }
+    }
+
+    public Mono<ServerResponse> streamReviews(ServerRequest serverRequest) {
+        // written as the Mongo cursor yields documents, batches are only fetched as the client keeps up
+        Flux<Review> reviews = serverRequest.queryParam("movieInfoId")
+                .map(movieInfoId -> reviewRepository.findReviewsByMovieInfoId(Long.valueOf(movieInfoId)))
+                .orElseGet(reviewRepository::findAll);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(reviews, Review.class);
+    }
+
+    public Mono<ServerResponse> getReviewsByMovieInfoIds(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(new ParameterizedTypeReference<List<Long>>() {})
+                .flatMap(movieInfoIds -> reviewRepository.findReviewsByMovieInfoIdIn(movieInfoIds)
+                        .collectMultimap(Review::getMovieInfoId))
+                .flatMap(ServerResponse.ok()::bodyValue)
+                .switchIfEmpty(ServerResponse.ok().bodyValue(Map.of()));
+    }
+
     private static Mono<ServerResponse> buildReviewResponse(Flux<Review> reviews) {
         return ServerResponse.ok().body(reviews, Review.class);
     }
 
+    public Mono<ServerResponse> getReviewStats(ServerRequest serverRequest) {
+        Long movieInfoId = serverRequest.queryParam("movieInfoId")
+                .map(Long::valueOf)
+                .orElseThrow(() -> new ReviewDataException("movieInfoId must be present"));
+
+        return reviewStatsRepository.findById(movieInfoId)
+                .defaultIfEmpty(ReviewStats.empty(movieInfoId))
+                .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    public Mono<ServerResponse> rebuildReviewStats(ServerRequest serverRequest) {
+        return reviewStatsService.rebuild()
+                .flatMap(movies -> ServerResponse.ok().bodyValue(Map.of("movies", movies)));
+    }
+
     public Mono<ServerResponse> getReview(ServerRequest serverRequest) {
         String reviewId = serverRequest.pathVariable("id");
         Mono<Review> review = reviewRepository.findById(reviewId);
@@ -73,28 +316,36 @@ public class ReviewHandler {
     public Mono<ServerResponse> updateReview(ServerRequest serverRequest) {
         String reviewId = serverRequest.pathVariable("id");
 
-        Mono<Review> reviewUpdate = serverRequest.bodyToMono(Review.class);
-                //.switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found for the given Review id "+reviewId)));
-
-        Mono<Review> existingReview = reviewRepository.findById(reviewId);
-
-        return existingReview.flatMap(review -> reviewUpdate.map(review1 -> {
-                    if(review1.getComment() != null)  review.setComment(review1.getComment());
-                    if(review1.getRating() != null) review.setRating(review1.getRating());
-                    return review ;
-                }).flatMap(reviewRepository::save).flatMap(ServerResponse.ok()::bodyValue))
-               .switchIfEmpty(ServerResponse.notFound().build());
-
-
-
+        return serverRequest.bodyToMono(Review.class)
+                .flatMap(review -> reviewRepository.updateReview(reviewId, review))
+                .flatMap(update -> reviewStatsService.reviewUpdated(update.getT1(), update.getT2())
+                        .thenReturn(update.getT2()))
+                .flatMap(ServerResponse.ok()::bodyValue)
+                .switchIfEmpty(ServerResponse.notFound().build());
     }
 
     public Mono<ServerResponse> deleteReview(ServerRequest serverRequest) {
         String reviewId = serverRequest.pathVariable("id");
 
-        return reviewRepository.findById(reviewId)
-                        .flatMap(review -> reviewRepository.deleteById(reviewId))
-                                .then(ServerResponse.noContent().build());
+        return reviewRepository.deleteReview(reviewId)
+                .flatMap(reviewStatsService::reviewRemoved)
+                .then(ServerResponse.noContent().build());
     }
 
+    private static class IngestLine {
+
+        private final long number;
+        private final Review review;
+        private final String error;
+
+        IngestLine(long number, Review review, String error) {
+            this.number = number;
+            this.review = review;
+            this.error = error;
+        }
+
+        static IngestLine failed(long number, String error) {
+            return new IngestLine(number, null, error);
+        }
+    }
 }
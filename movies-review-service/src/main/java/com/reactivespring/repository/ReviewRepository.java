@@ -1,11 +1,27 @@
 package com.reactivespring.repository;
 
 import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface ReviewRepository extends ReactiveMongoRepository <Review, String> {
+import java.util.Collection;
+
+public interface ReviewRepository extends ReactiveMongoRepository <Review, String>, ReviewRepositoryCustom {
 
 
     Flux<Review> findReviewsByMovieInfoId(Long movieInfoId);
+
+    Flux<Review> findReviewsByMovieInfoIdIn(Collection<Long> movieInfoIds);
+
+    Flux<Review> findReviewsByMovieInfoId(Long movieInfoId, Pageable pageable);
+
+    Flux<Review> findReviewsByMovieInfoIdAndReviewIdGreaterThan(Long movieInfoId, String reviewId, Pageable pageable);
+
+    Flux<Review> findAllBy(Pageable pageable);
+
+    Flux<Review> findByReviewIdGreaterThan(String reviewId, Pageable pageable);
+
+    Mono<Long> countByMovieInfoId(Long movieInfoId);
 }
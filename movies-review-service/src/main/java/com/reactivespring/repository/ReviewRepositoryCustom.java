@@ -0,0 +1,30 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ReviewRepositoryCustom {
+
+    /**
+     * Sets the non-null comment and rating of review on the stored document and returns the document as it was
+     * before and after the update, or empty when there is no Review with the given id.
+     */
+    Mono<Tuple2<Review, Review>> updateReview(String reviewId, Review review);
+
+    /**
+     * Deletes the Review and returns it, or empty when there was none. Only one of several concurrent
+     * deletes of the same Review gets it back.
+     */
+    Mono<Review> deleteReview(String reviewId);
+
+    /**
+     * Inserts reviews with a single unordered insertMany, so that a failing document doesn't stop the ones after
+     * it. Reviews without an id are given a new one. Returns the error of every review that was not inserted, by its
+     * index in reviews.
+     */
+    Mono<Map<Integer, String>> insertReviews(List<Review> reviews);
+}
@@ -0,0 +1,71 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.Review;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Tuple2<Review, Review>> updateReview(String reviewId, Review review) {
+        var update = new Update();
+        if(review.getComment() != null) update.set("comment", review.getComment());
+        if(review.getRating() != null) update.set("rating", review.getRating());
+
+        var byId = query(where("reviewId").is(reviewId));
+        if(update.getUpdateObject().isEmpty()){
+            // an empty update document would replace the stored one
+            return reactiveMongoTemplate.findOne(byId, Review.class)
+                    .map(existing -> Tuples.of(existing, existing));
+        }
+        // the previous document is what the stats need, the updated one is the same $set applied to it
+        return reactiveMongoTemplate.findAndModify(byId, update,
+                FindAndModifyOptions.options().returnNew(false), Review.class)
+                .map(previous -> Tuples.of(previous, new Review(previous.getReviewId(), previous.getMovieInfoId(),
+                        review.getComment() != null ? review.getComment() : previous.getComment(),
+                        review.getRating() != null ? review.getRating() : previous.getRating())));
+    }
+
+    @Override
+    public Mono<Review> deleteReview(String reviewId) {
+        return reactiveMongoTemplate.findAndRemove(query(where("reviewId").is(reviewId)), Review.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertReviews(List<Review> reviews) {
+        List<Document> documents = reviews.stream()
+                .map(review -> {
+                    if(review.getReviewId() == null) review.setReviewId(new ObjectId().toHexString());
+                    var document = new Document();
+                    reactiveMongoTemplate.getConverter().write(review, document);
+                    return document;
+                })
+                .collect(Collectors.toList());
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(ex.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))));
+    }
+}
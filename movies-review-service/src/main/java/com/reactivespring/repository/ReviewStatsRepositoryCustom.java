@@ -0,0 +1,30 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Incremental maintenance of {@link com.reactivespring.domain.ReviewStats}, each change is a single $inc upsert.
+ */
+public interface ReviewStatsRepositoryCustom {
+
+    Mono<Void> reviewAdded(Review review);
+
+    /**
+     * The same as reviewAdded for each of reviews, with one upsert per movie instead of one per review.
+     */
+    Mono<Void> reviewsAdded(Collection<Review> reviews);
+
+    Mono<Void> reviewUpdated(Review previous, Review updated);
+
+    Mono<Void> reviewRemoved(Review review);
+
+    /**
+     * Recomputes the stats of every movie from its reviews and drops those of movies without reviews, for reviews
+     * written before the stats existed and to repair stats a failed $inc left behind. Changes made while it runs
+     * may be lost for the movies they touch. Returns the number of movies with reviews.
+     */
+    Mono<Long> rebuild();
+}
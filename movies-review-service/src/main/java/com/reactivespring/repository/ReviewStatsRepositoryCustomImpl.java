@@ -0,0 +1,143 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class ReviewStatsRepositoryCustomImpl implements ReviewStatsRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Void> reviewAdded(Review review) {
+        return applyDelta(review.getMovieInfoId(), 1, null, review.getRating());
+    }
+
+    @Override
+    public Mono<Void> reviewsAdded(Collection<Review> reviews) {
+        Map<Long, Delta> deltas = new HashMap<>();
+        reviews.forEach(review -> deltas.computeIfAbsent(review.getMovieInfoId(), movieInfoId -> new Delta())
+                .add(1, null, review.getRating()));
+        return Flux.fromIterable(deltas.entrySet())
+                .flatMap(delta -> applyDelta(delta.getKey(), delta.getValue()))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> reviewUpdated(Review previous, Review updated) {
+        return applyDelta(updated.getMovieInfoId(), 0, previous.getRating(), updated.getRating());
+    }
+
+    @Override
+    public Mono<Void> reviewRemoved(Review review) {
+        return applyDelta(review.getMovieInfoId(), -1, review.getRating(), null);
+    }
+
+    @Override
+    public Mono<Long> rebuild() {
+        // one row per movie and whole-number rating bucket, the null bucket holds the reviews without a rating
+        var aggregation = newAggregation(Review.class,
+                match(where("movieInfoId").ne(null)),
+                project("movieInfoId", "rating").and(ArithmeticOperators.Floor.floorValueOf("rating")).as("bucket"),
+                group("movieInfoId", "bucket").count().as("count").sum("rating").as("ratingSum"),
+                sort(Sort.Direction.ASC, "movieInfoId"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        return reactiveMongoTemplate.aggregate(aggregation, Document.class)
+                .bufferUntilChanged(row -> row.get("_id", Document.class).get("movieInfoId"))
+                .map(ReviewStatsRepositoryCustomImpl::toReviewStats)
+                .concatMap(reactiveMongoTemplate::save)
+                .map(ReviewStats::getMovieInfoId)
+                .collectList()
+                .flatMap(movieInfoIds -> reactiveMongoTemplate.remove(query(where("movieInfoId").nin(movieInfoIds)), ReviewStats.class)
+                        .thenReturn((long) movieInfoIds.size()));
+    }
+
+    private static ReviewStats toReviewStats(List<Document> buckets) {
+        var stats = new ReviewStats();
+        stats.setHistogram(new HashMap<>());
+        buckets.forEach(row -> {
+            Document id = row.get("_id", Document.class);
+            long count = ((Number) row.get("count")).longValue();
+            stats.setMovieInfoId(((Number) id.get("movieInfoId")).longValue());
+            stats.setCount(stats.getCount() + count);
+            Number bucket = (Number) id.get("bucket");
+            if(bucket != null) {
+                stats.setRatingCount(stats.getRatingCount() + count);
+                stats.setRatingSum(stats.getRatingSum() + ((Number) row.get("ratingSum")).doubleValue());
+                stats.getHistogram().put(String.valueOf(bucket.longValue()), count);
+            }
+        });
+        return stats;
+    }
+
+    private Mono<Void> applyDelta(Long movieInfoId, long countDelta, Double removedRating, Double addedRating) {
+        return applyDelta(movieInfoId, new Delta().add(countDelta, removedRating, addedRating));
+    }
+
+    private Mono<Void> applyDelta(Long movieInfoId, Delta delta) {
+        var update = new Update();
+        if(delta.count != 0) update.inc("count", delta.count);
+        if(delta.ratingCount != 0) update.inc("ratingCount", delta.ratingCount);
+        if(delta.ratingSum != 0) update.inc("ratingSum", delta.ratingSum);
+        delta.histogram.forEach((bucket, bucketDelta) -> {
+            if(bucketDelta != 0) update.inc("histogram." + bucket, bucketDelta);
+        });
+
+        if(update.getUpdateObject().isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.upsert(query(where("movieInfoId").is(movieInfoId)), update, ReviewStats.class)
+                .then();
+    }
+
+    private static String bucket(Double rating) {
+        return String.valueOf((long) Math.floor(rating));
+    }
+
+    private static class Delta {
+
+        private long count;
+        private long ratingCount;
+        private double ratingSum;
+        // Update#inc keeps only the last value per key, so bucket deltas are summed first
+        private final Map<String, Long> histogram = new HashMap<>();
+
+        Delta add(long countDelta, Double removedRating, Double addedRating) {
+            count += countDelta;
+            if(removedRating != null) {
+                ratingCount--;
+                ratingSum -= removedRating;
+                histogram.merge(bucket(removedRating), -1L, Long::sum);
+            }
+            if(addedRating != null) {
+                ratingCount++;
+                ratingSum += addedRating;
+                histogram.merge(bucket(addedRating), 1L, Long::sum);
+            }
+            return this;
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.reactivespring.router;
 import com.reactivespring.handler.ReviewHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static org.springframework.web.reactive.function.server.RequestPredicates.headers;
 import static org.springframework.web.reactive.function.server.RequestPredicates.path;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
@@ -19,11 +22,22 @@ public class ReviewRouter {
                 .bodyValue("hello world")))
                 .nest(path("/v1/reviews"), builder -> {
                     builder.POST("", reviewHandler::addReview)
+                            .GET("", acceptsNdjson(), reviewHandler::streamReviews)
                             .GET("", reviewHandler::getReviews)
+                            .POST("/byMovie", reviewHandler::getReviewsByMovieInfoIds)
+                            .POST("/ingest", reviewHandler::ingestReviews)
+                            .GET("/stats", reviewHandler::getReviewStats)
+                            .POST("/stats/rebuild", reviewHandler::rebuildReviewStats)
                             .GET("/{id}", reviewHandler::getReview)
                             .PUT("/{id}", reviewHandler::updateReview)
                             .DELETE("/{id}", reviewHandler::deleteReview);
                 })
                 .build();
     }
+
+    // RequestPredicates.accept would also match */*, which must keep getting the JSON array
+    private static RequestPredicate acceptsNdjson(){
+        return headers(headers -> headers.accept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype));
+    }
 }
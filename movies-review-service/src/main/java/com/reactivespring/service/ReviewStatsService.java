@@ -0,0 +1,66 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Applies review writes to the review stats, and backs POST /v1/reviews/stats/rebuild.
+ * <p>
+ * The stats are updated after the review itself has been written. A failed update is logged and counted but
+ * doesn't fail the write, whose caller would retry it and store the review twice. The stats are then off until
+ * the next rebuild.
+ */
+@Service
+@Slf4j
+public class ReviewStatsService {
+
+    private final ReviewStatsRepository reviewStatsRepository;
+    private final Counter updateFailures;
+
+    public ReviewStatsService(ReviewStatsRepository reviewStatsRepository, MeterRegistry meterRegistry) {
+        this.reviewStatsRepository = reviewStatsRepository;
+        this.updateFailures = Counter.builder("reviews.stats.update.failures")
+                .description("Review writes that were stored but not applied to the review stats")
+                .register(meterRegistry);
+    }
+
+    public Mono<Void> reviewAdded(Review review) {
+        return tolerateFailure(Mono.defer(() -> reviewStatsRepository.reviewAdded(review)), "adding a review");
+    }
+
+    public Mono<Void> reviewsAdded(Collection<Review> reviews) {
+        return tolerateFailure(Mono.defer(() -> reviewStatsRepository.reviewsAdded(reviews)),
+                "adding " + reviews.size() + " reviews");
+    }
+
+    public Mono<Void> reviewUpdated(Review previous, Review updated) {
+        return tolerateFailure(Mono.defer(() -> reviewStatsRepository.reviewUpdated(previous, updated)), "updating a review");
+    }
+
+    public Mono<Void> reviewRemoved(Review review) {
+        return tolerateFailure(Mono.defer(() -> reviewStatsRepository.reviewRemoved(review)), "removing a review");
+    }
+
+    public Mono<Long> rebuild() {
+        long start = System.nanoTime();
+        return reviewStatsRepository.rebuild()
+                .doOnNext(movies -> log.info("Rebuilt the review stats of {} movies in {}", movies,
+                        Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private Mono<Void> tolerateFailure(Mono<Void> update, String change) {
+        return update.onErrorResume(ex -> {
+            log.error("Updating the review stats after {} failed, they are off until rebuilt : {}", change, ex.getMessage());
+            updateFailures.increment();
+            return Mono.empty();
+        });
+    }
+}
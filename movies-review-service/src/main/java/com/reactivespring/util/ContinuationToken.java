@@ -0,0 +1,37 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.InvalidContinuationTokenException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor handed to clients: the id of the last document of a page, which the next page starts after.
+ */
+public class ContinuationToken {
+
+    public static final String HEADER = "X-Continuation-Token";
+
+    private static final String PREFIX = "after:";
+
+    private ContinuationToken() {
+    }
+
+    public static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String token) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidContinuationTokenException(token);
+        }
+        if (!decoded.startsWith(PREFIX) || decoded.length() == PREFIX.length()) {
+            throw new InvalidContinuationTokenException(token);
+        }
+        return decoded.substring(PREFIX.length());
+    }
+}
@@ -0,0 +1,176 @@
+package com.reactivespring.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.reactivespring.config.MongoIndexConfig;
+import com.reactivespring.domain.Review;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexConfig.class)
+class ReviewRepositoryIndexIntgTest {
+
+    @Autowired
+    ReviewRepository reviewRepository;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    CapturedQueries capturedQueries;
+
+    @BeforeEach
+    void setUp(){
+        var reviewsList = List.of(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+        reviewRepository.saveAll(reviewsList).blockLast();
+    }
+
+    @AfterEach
+    void tearDown(){
+        reviewRepository.deleteAll().block();
+    }
+
+    @Test
+    void repositoryQueriesUseIndexes(){
+        String afterReviewId = reviewRepository.findAll().blockFirst().getReviewId();
+
+        // each query method with the sorts ReviewHandler pages it by
+        Map<String, Supplier<Publisher<?>>> queries = new LinkedHashMap<>();
+        queries.put("findReviewsByMovieInfoId", () -> reviewRepository.findReviewsByMovieInfoId(1L));
+        queries.put("findReviewsByMovieInfoIdIn", () -> reviewRepository.findReviewsByMovieInfoIdIn(List.of(1L, 2L)));
+        queries.put("findReviewsByMovieInfoId by reviewId", () -> reviewRepository.findReviewsByMovieInfoId(1L,
+                PageRequest.of(0, 10, Sort.by("reviewId"))));
+        queries.put("findReviewsByMovieInfoId by recency", () -> reviewRepository.findReviewsByMovieInfoId(1L,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "reviewId"))));
+        queries.put("findReviewsByMovieInfoId by rating", () -> reviewRepository.findReviewsByMovieInfoId(1L,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "rating"))));
+        queries.put("findReviewsByMovieInfoIdAndReviewIdGreaterThan", () -> reviewRepository.findReviewsByMovieInfoIdAndReviewIdGreaterThan(1L,
+                afterReviewId, PageRequest.of(0, 10, Sort.by("reviewId"))));
+        queries.put("findAllBy", () -> reviewRepository.findAllBy(PageRequest.of(0, 10, Sort.by("reviewId"))));
+        queries.put("findByReviewIdGreaterThan", () -> reviewRepository.findByReviewIdGreaterThan(afterReviewId,
+                PageRequest.of(0, 10, Sort.by("reviewId"))));
+        queries.put("countByMovieInfoId", () -> reviewRepository.countByMovieInfoId(1L));
+
+        queries.forEach((method, query) -> {
+            capturedQueries.clear();
+            Flux.from(query.get()).blockLast();
+            List<BsonDocument> commands = capturedQueries.get();
+            assertFalse(commands.isEmpty(), method + " sent no query");
+
+            commands.forEach(command -> {
+                var stages = winningPlanStages(explain(command), false);
+                assertTrue(stages.contains("IXSCAN") || stages.contains("COUNT_SCAN"), method + " doesn't use an index: " + stages);
+                assertFalse(stages.contains("COLLSCAN"), method + " falls back to a collection scan: " + stages);
+                assertFalse(stages.contains("SORT"), method + " sorts in memory: " + stages);
+            });
+        });
+    }
+
+    private Document explain(BsonDocument command){
+        var query = new BsonDocument();
+        command.forEach((key, value) -> {
+            // session, cluster time, database and read preference are added by the driver
+            if (!key.startsWith("$") && !key.equals("lsid")) {
+                query.put(key, value);
+            }
+        });
+        BsonDocument explain;
+        if ("aggregate".equals(query.getFirstKey())) {
+            query.remove("cursor");
+            explain = query.append("explain", BsonBoolean.TRUE);
+        } else {
+            explain = new BsonDocument("explain", query).append("verbosity", new BsonString("queryPlanner"));
+        }
+        return reactiveMongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.runCommand(explain)))
+                .block();
+    }
+
+    // the stages of every winning plan, an aggregation has one per $cursor stage
+    private static List<String> winningPlanStages(Object explain, boolean inWinningPlan){
+        List<String> stages = new ArrayList<>();
+        if (explain instanceof Document) {
+            ((Document) explain).forEach((key, value) -> {
+                if (inWinningPlan && key.equals("stage")) {
+                    stages.add((String) value);
+                } else {
+                    stages.addAll(winningPlanStages(value, inWinningPlan || key.equals("winningPlan")));
+                }
+            });
+        } else if (explain instanceof List) {
+            ((List<?>) explain).forEach(item -> stages.addAll(winningPlanStages(item, inWinningPlan)));
+        }
+        return stages;
+    }
+
+    static class CapturedQueries implements CommandListener {
+
+        private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count");
+
+        private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                // the event's document is only valid while the listener runs
+                commands.add(event.getCommand().clone());
+            }
+        }
+
+        void clear() {
+            commands.clear();
+        }
+
+        List<BsonDocument> get() {
+            return List.copyOf(commands);
+        }
+    }
+
+    @TestConfiguration
+    static class CapturedQueriesConfig {
+
+        @Bean
+        CapturedQueries capturedQueries() {
+            return new CapturedQueries();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureQueries(CapturedQueries capturedQueries) {
+            return builder -> builder.addCommandListener(capturedQueries);
+        }
+    }
+}
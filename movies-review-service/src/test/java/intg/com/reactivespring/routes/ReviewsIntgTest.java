@@ -2,19 +2,24 @@ package com.reactivespring.routes;
 
 
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
 import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import com.reactivespring.util.ContinuationToken;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,6 +36,9 @@ public class ReviewsIntgTest {
     @Autowired
     ReviewRepository reviewRepository;
 
+    @Autowired
+    ReviewStatsRepository reviewStatsRepository;
+
     @BeforeEach
     void setUp(){
 
@@ -46,6 +54,7 @@ public class ReviewsIntgTest {
     @AfterEach
     void tearDown(){
         reviewRepository.deleteAll().block();
+        reviewStatsRepository.deleteAll().block();
     }
 
     @Test
@@ -115,6 +124,156 @@ public class ReviewsIntgTest {
 
     }
 
+    @Test
+    void updateReview_onlyRating(){
+
+        String reviewId = "63b6a69447d33668011ad252";
+        webTestClient.put().uri(REVIEWS_URL+"/{id}", reviewId)
+                .bodyValue(new Review(null, null, null, 7.5))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    Review review = reviewEntityExchangeResult.getResponseBody();
+                    assert review != null;
+                    assertEquals(7.5, review.getRating());
+                    assertEquals("Awesome Movie", review.getComment());
+                    assertEquals(1L, review.getMovieInfoId());
+                });
+    }
+
+    @Test
+    void updateReview_notFound(){
+
+        webTestClient.put().uri(REVIEWS_URL+"/{id}", "def")
+                .bodyValue(new Review(null, 1L, "Awesome Movie Updated", 9.0))
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void getReviewsPageByPage(){
+        var continuationToken = webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(ContinuationToken.HEADER);
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&limit=2&after={token}", continuationToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ContinuationToken.HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void reviewStatsFollowReviewChanges(){
+        var first = addReview(new Review(null, 3L, "Awesome Movie", 9.0));
+        var second = addReview(new Review(null, 3L, "Good Movie", 7.0));
+        addReview(new Review(null, 3L, "No rating", null));
+
+        webTestClient.put().uri(REVIEWS_URL+"/{id}", second.getReviewId())
+                .bodyValue(new Review(null, null, null, 8.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        webTestClient.delete().uri(REVIEWS_URL+"/{id}", first.getReviewId())
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        webTestClient.get().uri(REVIEWS_URL+"/stats?movieInfoId=3")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.ratingCount").isEqualTo(1)
+                .jsonPath("$.averageRating").isEqualTo(8.0)
+                .jsonPath("$.histogram.8").isEqualTo(1)
+                .jsonPath("$.histogram.9").isEqualTo(0)
+                .jsonPath("$.histogram.7").isEqualTo(0);
+    }
+
+    @Test
+    void rebuildReviewStats(){
+        // the reviews of setUp were stored without stats, movie 9 has stats but no reviews left
+        reviewStatsRepository.save(new ReviewStats(9L, 1, 1, 5.0, Map.of("5", 1L))).block();
+        reviewRepository.save(new Review(null, 2L, "No rating", null)).block();
+
+        webTestClient.post().uri(REVIEWS_URL+"/stats/rebuild")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.movies").isEqualTo(2);
+
+        webTestClient.get().uri(REVIEWS_URL+"/stats?movieInfoId=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(3)
+                .jsonPath("$.averageRating").isEqualTo(9.0)
+                .jsonPath("$.histogram.9").isEqualTo(3);
+        var reviewStats = reviewStatsRepository.findById(2L).block();
+        assertEquals(2, reviewStats.getCount());
+        assertEquals(1, reviewStats.getRatingCount());
+        assertEquals(Map.of("8", 1L), reviewStats.getHistogram());
+        assertEquals(0, reviewStatsRepository.findById(9L).blockOptional().map(ReviewStats::getCount).orElse(0L));
+    }
+
+    private Review addReview(Review review){
+        return webTestClient.post().uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    void getTopReviewsByRating(){
+        reviewRepository.save(new Review(null, 1L, "Masterpiece", 10.0)).block();
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&sort=rating&limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals("X-Total-Count", "4")
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .value(reviews -> assertEquals("Masterpiece", reviews.get(0).getComment()));
+    }
+
+    @Test
+    void getTopReviewsByRecency(){
+        reviewRepository.save(new Review(null, 1L, "Latest review", 5.0)).block();
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&sort=recent&limit=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals("X-Total-Count", "4")
+                .expectBodyList(Review.class)
+                .hasSize(1)
+                .value(reviews -> assertEquals("Latest review", reviews.get(0).getComment()));
+    }
+
     @Test
     void getReviewsByMovieInfoId(){
         URI uriStr = UriComponentsBuilder.fromUriString(REVIEWS_URL)
@@ -141,4 +300,42 @@ public class ReviewsIntgTest {
 
     }
 
+    @Test
+    void getReviewsByMovieInfoIds(){
+        webTestClient.post().uri(REVIEWS_URL+"/byMovie")
+                .bodyValue(List.of(1L, 2L))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.1.length()").isEqualTo(3)
+                .jsonPath("$.2.length()").isEqualTo(1);
+    }
+
+    @Test
+    void ingestReviews(){
+        // the first line reuses the id of a stored review
+        var ndjson = "{\"reviewId\": \"63b6a69447d33668011ad252\", \"movieInfoId\": 3, \"comment\": \"Duplicate\", \"rating\": 1.0}\n"
+                + "{\"movieInfoId\": 3, \"comment\": \"Awesome Movie\", \"rating\": 9.0}\n"
+                + "{\"comment\": \"No Movie\"}\n"
+                + "{\"movieInfoId\": 3, \"comment\": \"Excellent Movie\", \"rating\": 8.0}\n";
+
+        webTestClient.post().uri(REVIEWS_URL+"/ingest")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.inserted").isEqualTo(2)
+                .jsonPath("$.failed").isEqualTo(2)
+                .jsonPath("$.failures[0].line").isEqualTo(1)
+                .jsonPath("$.failures[1].line").isEqualTo(3);
+
+        assertEquals(2, reviewRepository.countByMovieInfoId(3L).block());
+        var reviewStats = reviewStatsRepository.findById(3L).block();
+        assertEquals(2, reviewStats.getCount());
+        assertEquals(17.0, reviewStats.getRatingSum());
+    }
+
 }
@@ -0,0 +1,166 @@
+package com.reactivespring.batching;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import com.reactivespring.service.ReviewStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewWriteCoalescerTest {
+
+    ReviewRepository reviewRepository = Mockito.mock(ReviewRepository.class);
+    ReviewStatsRepository reviewStatsRepository = Mockito.mock(ReviewStatsRepository.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ReviewWriteCoalescer coalescer;
+
+    @AfterEach
+    void tearDown(){
+        coalescer.shutdown();
+    }
+
+    @Test
+    void concurrentSavesShareOneInsert(){
+        coalescer = coalescer(3, Duration.ofSeconds(10));
+        when(reviewRepository.insertReviews(anyList())).thenReturn(Mono.just(Map.of()));
+        when(reviewStatsRepository.reviewsAdded(anyList())).thenReturn(Mono.empty());
+
+        var first = coalescer.save(review("first"));
+        var second = coalescer.save(review("second"));
+        var third = coalescer.save(review("third"));
+
+        StepVerifier.create(Mono.zip(first, second, third))
+                .assertNext(saved -> {
+                    assertEquals("first", saved.getT1().getComment());
+                    assertEquals("second", saved.getT2().getComment());
+                    assertEquals("third", saved.getT3().getComment());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        verify(reviewRepository, times(1)).insertReviews(anyList());
+        assertEquals(1, meterRegistry.summary("reviews.write.coalescing.batch.size").count());
+        assertEquals(3.0, meterRegistry.summary("reviews.write.coalescing.batch.size").totalAmount());
+        assertEquals(3, meterRegistry.timer("reviews.write.coalescing.delay").count());
+    }
+
+    @Test
+    void eachCallerGetsItsOwnError(){
+        coalescer = coalescer(2, Duration.ofSeconds(10));
+        when(reviewRepository.insertReviews(anyList())).thenReturn(Mono.just(Map.of(1, "E11000 duplicate key error")));
+        when(reviewStatsRepository.reviewsAdded(anyList())).thenReturn(Mono.empty());
+
+        var first = coalescer.save(review("first"));
+        var second = coalescer.save(review("second"));
+
+        StepVerifier.create(Mono.zip(first.materialize(), second.materialize()))
+                .assertNext(signals -> {
+                    assertEquals("first", signals.getT1().get().getComment());
+                    assertTrue(signals.getT2().getThrowable() instanceof ReviewDataException);
+                    assertEquals("E11000 duplicate key error", signals.getT2().getThrowable().getMessage());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        ArgumentCaptor<List<Review>> added = ArgumentCaptor.forClass(List.class);
+        verify(reviewStatsRepository).reviewsAdded(added.capture());
+        assertEquals(List.of(review("first")), added.getValue());
+    }
+
+    @Test
+    void partialBatchIsFlushedAfterMaxDelay(){
+        coalescer = coalescer(100, Duration.ofMillis(20));
+        when(reviewRepository.insertReviews(anyList())).thenReturn(Mono.just(Map.of()));
+        when(reviewStatsRepository.reviewsAdded(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(coalescer.save(review("alone")))
+                .assertNext(saved -> assertEquals("alone", saved.getComment()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void failedBatchFailsItsCallersOnly(){
+        coalescer = coalescer(1, Duration.ofSeconds(10));
+        when(reviewRepository.insertReviews(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")))
+                .thenReturn(Mono.just(Map.of()));
+        when(reviewStatsRepository.reviewsAdded(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(coalescer.save(review("first")))
+                .expectErrorMessage("connection lost")
+                .verify(Duration.ofSeconds(1));
+        StepVerifier.create(coalescer.save(review("second")))
+                .assertNext(saved -> assertEquals("second", saved.getComment()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void failedStatsUpdateStillCompletesCallers(){
+        coalescer = coalescer(2, Duration.ofSeconds(10));
+        when(reviewRepository.insertReviews(anyList())).thenReturn(Mono.just(Map.of()));
+        when(reviewStatsRepository.reviewsAdded(anyList())).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        var first = coalescer.save(review("first"));
+        var second = coalescer.save(review("second"));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(saved -> {
+                    assertEquals("first", saved.getT1().getComment());
+                    assertEquals("second", saved.getT2().getComment());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1.0, meterRegistry.counter("reviews.stats.update.failures").count());
+    }
+
+    @Test
+    void queuedSavesFailOnShutdown(){
+        coalescer = coalescer(100, Duration.ofSeconds(10));
+
+        StepVerifier.create(coalescer.save(review("queued")))
+                .then(coalescer::shutdown)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void saveAfterShutdownFails(){
+        coalescer = coalescer(1, Duration.ofSeconds(10));
+        coalescer.shutdown();
+
+        StepVerifier.create(coalescer.save(review("late")))
+                .expectErrorMessage("Review write coalescing has been shut down")
+                .verify(Duration.ofSeconds(1));
+        verify(reviewRepository, times(0)).insertReviews(anyList());
+    }
+
+    private ReviewWriteCoalescer coalescer(int maxBatchSize, Duration maxDelay) {
+        return new ReviewWriteCoalescer(reviewRepository, new ReviewStatsService(reviewStatsRepository, meterRegistry), meterRegistry,
+                true, maxBatchSize, maxDelay, 4);
+    }
+
+    private static Review review(String comment) {
+        return new Review(null, 1L, comment, 9.0);
+    }
+}
@@ -1,31 +1,52 @@
 package com.reactivespring.routes;
 
 
+import com.reactivespring.batching.ReviewWriteCoalescer;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
 import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.filter.DeadlineWebFilter;
 import com.reactivespring.handler.ReviewHandler;
 import com.reactivespring.repository.ReviewRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
 import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.service.ReviewStatsService;
+import com.reactivespring.util.ContinuationToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 
 @WebFluxTest
-@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class})
+@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, ReviewStatsService.class, SimpleMeterRegistry.class,
+        GlobalErrorHandler.class, DeadlineWebFilter.class})
 @AutoConfigureWebTestClient
 public class ReviewsUnitTest {
 
@@ -33,9 +54,18 @@ public class ReviewsUnitTest {
     @MockBean
     private ReviewRepository reviewRepository;
 
+    @MockBean
+    private ReviewStatsRepository reviewStatsRepository;
+
+    @MockBean
+    private ReviewWriteCoalescer reviewWriteCoalescer;
+
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getAllReviews(){
 
@@ -56,12 +86,146 @@ public class ReviewsUnitTest {
 
     }
 
+    @Test
+    void getReviewsPage(){
+        var page = List.of(
+                new Review("63b6a69447d33668011ad252", 1L, "Awesome Movie", 9.0),
+                new Review("63b6a69447d33668011ad253", 1L, "Awesome Movie1", 9.0));
+
+        when(reviewRepository.findReviewsByMovieInfoId(isA(Long.class), isA(Pageable.class))).thenReturn(Flux.fromIterable(page));
+
+        var continuationToken = webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(ContinuationToken.HEADER);
+
+        assertEquals("63b6a69447d33668011ad253", ContinuationToken.decode(Objects.requireNonNull(continuationToken)));
+
+        when(reviewRepository.findReviewsByMovieInfoIdAndReviewIdGreaterThan(eq(1L), eq("63b6a69447d33668011ad253"), isA(Pageable.class)))
+                .thenReturn(Flux.just(new Review("63b6a69447d33668011ad254", 1L, "The Best Movie", 9.0)));
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&limit=2&after={token}", continuationToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ContinuationToken.HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getTopReviews(){
+        when(reviewRepository.findReviewsByMovieInfoId(eq(1L), isA(Pageable.class))).thenReturn(Flux.just(
+                new Review("63b6a69447d33668011ad254", 1L, "The Best Movie", 10.0),
+                new Review("63b6a69447d33668011ad252", 1L, "Awesome Movie", 9.0)));
+        when(reviewRepository.countByMovieInfoId(1L)).thenReturn(Mono.just(42L));
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&sort=rating&limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals("X-Total-Count", "42")
+                .expectBodyList(Review.class)
+                .hasSize(2);
+
+        var pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(reviewRepository).findReviewsByMovieInfoId(eq(1L), pageable.capture());
+        assertEquals(2, pageable.getValue().getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "rating"), pageable.getValue().getSort());
+    }
+
+    @Test
+    void getTopReviews_invalidSort(){
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1&sort=oldest&limit=2")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getReviewsPage_invalidToken(){
+        webTestClient.get().uri(REVIEWS_URL+"?limit=2&after=not-a-token")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void streamReviews(){
+        when(reviewRepository.findAll()).thenReturn(Flux.just(
+                new Review("63b6a69447d33668011ad252", 1L, "Awesome Movie", 9.0),
+                new Review("63b6a69447d33668011ad253", 2L, "Excellent Movie", 8.0)));
+
+        var reviews = webTestClient.get().uri(REVIEWS_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviews)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewStats(){
+        when(reviewStatsRepository.findById(1L))
+                .thenReturn(Mono.just(new ReviewStats(1L, 3, 2, 17.0, Map.of("8", 1L, "9", 1L))));
+
+        webTestClient.get().uri(REVIEWS_URL+"/stats?movieInfoId=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(3)
+                .jsonPath("$.averageRating").isEqualTo(8.5)
+                .jsonPath("$.histogram.8").isEqualTo(1);
+    }
+
+    @Test
+    void getReviewStats_noReviews(){
+        when(reviewStatsRepository.findById(2L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri(REVIEWS_URL+"/stats?movieInfoId=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.movieInfoId").isEqualTo(2)
+                .jsonPath("$.count").isEqualTo(0)
+                .jsonPath("$.averageRating").doesNotExist();
+    }
+
+    @Test
+    void rebuildReviewStats(){
+        when(reviewStatsRepository.rebuild()).thenReturn(Mono.just(2L));
+
+        webTestClient.post().uri(REVIEWS_URL+"/stats/rebuild")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.movies").isEqualTo(2);
+    }
+
     @Test
     void addReview(){
         Review newReview = new Review(null, 1L, "Awesome Movie", 9.0);
 
         when(reviewRepository.save(isA(Review.class)))
                 .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewStatsRepository.reviewAdded(isA(Review.class))).thenReturn(Mono.empty());
 
 
         webTestClient.post().uri(REVIEWS_URL)
@@ -79,6 +243,44 @@ public class ReviewsUnitTest {
     }
 
 
+    @Test
+    void addReview_statsFailure(){
+        when(reviewRepository.save(isA(Review.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewStatsRepository.reviewAdded(isA(Review.class))).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+        double failures = meterRegistry.counter("reviews.stats.update.failures").count();
+
+        // the review is stored, failing the request would have the client store it again
+        webTestClient.post().uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .consumeWith(result -> assertEquals("abc", Objects.requireNonNull(result.getResponseBody()).getReviewId()));
+
+        assertEquals(failures + 1, meterRegistry.counter("reviews.stats.update.failures").count());
+    }
+
+    @Test
+    void addReview_coalesced(){
+        Review newReview = new Review(null, 1L, "Awesome Movie", 9.0);
+
+        when(reviewWriteCoalescer.isEnabled()).thenReturn(true);
+        when(reviewWriteCoalescer.save(isA(Review.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient.post().uri(REVIEWS_URL)
+                .bodyValue(newReview)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .consumeWith(result -> assertEquals("abc", Objects.requireNonNull(result.getResponseBody()).getReviewId()));
+
+        verify(reviewRepository, never()).save(isA(Review.class));
+    }
+
     @Test
     void getReview(){
 
@@ -106,8 +308,9 @@ public class ReviewsUnitTest {
 
         Review updatedReview = new Review(null, 1L, "Awesome Movie", 8.0);
 
-        when(reviewRepository.save(isA(Review.class))).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
-        when(reviewRepository.findById(isA(String.class))).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewRepository.updateReview(isA(String.class), isA(Review.class))).thenReturn(Mono.just(Tuples.of(
+                new Review("abc", 1L, "Awesome Movie", 8.0), new Review("abc", 1L, "Awesome Movie", 9.0))));
+        when(reviewStatsRepository.reviewUpdated(isA(Review.class), isA(Review.class))).thenReturn(Mono.empty());
 
         webTestClient.put().uri(REVIEWS_URL+"/{id}", movieId)
                 .bodyValue(updatedReview)
@@ -123,12 +326,50 @@ public class ReviewsUnitTest {
                 });
     }
 
+    @Test
+    void updateReview_notFound(){
+        when(reviewRepository.updateReview(isA(String.class), isA(Review.class))).thenReturn(Mono.empty());
+
+        webTestClient.put().uri(REVIEWS_URL+"/{id}", "def")
+                .bodyValue(new Review(null, 1L, "Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+
+    @Test
+    void updateReview_statsFailure(){
+        when(reviewRepository.updateReview(isA(String.class), isA(Review.class))).thenReturn(Mono.just(Tuples.of(
+                new Review("abc", 1L, "Awesome Movie", 8.0), new Review("abc", 1L, "Awesome Movie", 9.0))));
+        when(reviewStatsRepository.reviewUpdated(isA(Review.class), isA(Review.class)))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        webTestClient.put().uri(REVIEWS_URL+"/{id}", "abc")
+                .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Review.class)
+                .consumeWith(result -> assertEquals(9.0, Objects.requireNonNull(result.getResponseBody()).getRating()));
+    }
+
+    @Test
+    void deleteReview_statsFailure(){
+        when(reviewRepository.deleteReview(isA(String.class))).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewStatsRepository.reviewRemoved(isA(Review.class))).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        webTestClient.delete().uri(REVIEWS_URL+"/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+    }
 
     @Test
     void deleteReview(){
         String reviewId = "abc";
-        when(reviewRepository.findById(isA(String.class))).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
-        when(reviewRepository.deleteById(isA(String.class))).thenReturn(Mono.empty());
+        when(reviewRepository.deleteReview(isA(String.class))).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewStatsRepository.reviewRemoved(isA(Review.class))).thenReturn(Mono.empty());
 
         webTestClient.delete().uri(REVIEWS_URL+"/{id}", reviewId)
                 .exchange()
@@ -155,4 +396,102 @@ public class ReviewsUnitTest {
                 .isEqualTo("rating.movieInfoId must not be null,rating.negative : please pass a non-negative value");
     }
 
+    @Test
+    void ingestReviews(){
+        var ndjson = "{\"movieInfoId\": 1, \"comment\": \"Awesome Movie\", \"rating\": 9.0}\n"
+                + "{\"movieInfoId\": 1, \"comment\": \n"
+                + "\n"
+                + "{\"movieInfoId\": 2, \"comment\": \"Excellent Movie\", \"rating\": -1.0}\n"
+                + "{\"reviewId\": \"abc\", \"movieInfoId\": 2, \"comment\": \"Excellent Movie\", \"rating\": 8.0}\n";
+
+        when(reviewRepository.insertReviews(isA(List.class)))
+                .thenReturn(Mono.just(Map.of(1, "E11000 duplicate key error")));
+        when(reviewStatsRepository.reviewsAdded(isA(List.class))).thenReturn(Mono.empty());
+
+        webTestClient.post().uri(REVIEWS_URL+"/ingest")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.inserted").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(3)
+                .jsonPath("$.failures[0].line").isEqualTo(2)
+                .jsonPath("$.failures[1].line").isEqualTo(4)
+                .jsonPath("$.failures[1].error").isEqualTo("rating.negative : please pass a non-negative value")
+                .jsonPath("$.failures[2].line").isEqualTo(5)
+                .jsonPath("$.failures[2].error").isEqualTo("E11000 duplicate key error")
+                .jsonPath("$.failuresTruncated").isEqualTo(false);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Review>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(reviewRepository).insertReviews(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Review>> added = ArgumentCaptor.forClass(List.class);
+        verify(reviewStatsRepository).reviewsAdded(added.capture());
+        assertEquals(List.of(new Review(null, 1L, "Awesome Movie", 9.0)), added.getValue());
+    }
+
+    @Test
+    void ingestReviews_statsFailure(){
+        var ndjson = "{\"movieInfoId\": 1, \"comment\": \"Awesome Movie\", \"rating\": 9.0}\n"
+                + "{\"movieInfoId\": 2, \"comment\": \"Excellent Movie\", \"rating\": 8.0}\n";
+
+        when(reviewRepository.insertReviews(isA(List.class))).thenReturn(Mono.just(Map.of()));
+        when(reviewStatsRepository.reviewsAdded(isA(List.class))).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+        double failures = meterRegistry.counter("reviews.stats.update.failures").count();
+
+        webTestClient.post().uri(REVIEWS_URL+"/ingest")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.inserted").isEqualTo(2)
+                .jsonPath("$.failed").isEqualTo(0);
+
+        assertEquals(failures + 1, meterRegistry.counter("reviews.stats.update.failures").count());
+    }
+
+    @Test
+    void getReviewsByMovieInfoIds(){
+
+        var reviewsList = List.of(
+                new Review("1", 1L, "Awesome Movie", 9.0),
+                new Review("2", 1L, "Awesome Movie1", 9.0),
+                new Review("3", 2L, "Excellent Movie", 8.0));
+
+        when(reviewRepository.findReviewsByMovieInfoIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(Flux.fromIterable(reviewsList));
+
+        webTestClient.post().uri(REVIEWS_URL+"/byMovie")
+                .bodyValue(List.of(1L, 2L, 3L))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.1.length()").isEqualTo(2)
+                .jsonPath("$.2.length()").isEqualTo(1)
+                .jsonPath("$.3").doesNotExist();
+    }
+
+    @Test
+    void getReviews_deadlineExceeded(){
+
+        var cancelled = new AtomicBoolean();
+        when(reviewRepository.findReviewsByMovieInfoId(1L))
+                .thenReturn(Flux.<Review>never().doOnCancel(() -> cancelled.set(true)));
+
+        webTestClient.get().uri(REVIEWS_URL+"?movieInfoId=1")
+                .header(DeadlineWebFilter.HEADER, "100")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(504);
+
+        assertTrue(cancelled.get());
+    }
+
 }
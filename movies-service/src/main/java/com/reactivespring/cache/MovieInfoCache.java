@@ -0,0 +1,133 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded async cache of movie infos keyed by id.
+ * Concurrent misses for the same id share one in-flight load, entries are refreshed
+ * in the background once they are older than refreshAfterWrite, and 404s are cached
+ * for a shorter negativeExpireAfterWrite.
+ */
+public class MovieInfoCache {
+
+    private final AsyncLoadingCache<String, CachedMovieInfo> cache;
+
+    private final Function<String, Mono<MovieInfo>> loader;
+
+    public MovieInfoCache(RestClientProperties.MovieInfoCache config,
+                          Function<String, Mono<MovieInfo>> loader,
+                          MeterRegistry meterRegistry) {
+        this.loader = loader;
+        // background refreshes aren't made for any request, so they run without a deadline or trace
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new CachedMovieInfoExpiry(config.getExpireAfterWrite(), config.getNegativeExpireAfterWrite()))
+                .refreshAfterWrite(config.getRefreshAfterWrite())
+                .recordStats()
+                .buildAsync((movieId, executor) -> load(movieId).toFuture());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "movieInfo");
+    }
+
+    /**
+     * A miss is loaded in the caller's Reactor Context, so that the load keeps the caller's deadline and trace.
+     * Callers joining a load in flight share those of the caller that started it.
+     */
+    public Mono<MovieInfo> get(String movieId) {
+        return Mono.deferContextual(context -> Mono.fromFuture(cache.get(movieId,
+                        (id, executor) -> load(id).contextWrite(context).toFuture())))
+                .flatMap(CachedMovieInfo::toMono);
+    }
+
+    public void put(MovieInfo movieInfo) {
+        cache.put(movieInfo.getMovieInfoId(), CompletableFuture.completedFuture(CachedMovieInfo.found(movieInfo)));
+    }
+
+    public void evict(String movieId) {
+        cache.synchronous().invalidate(movieId);
+    }
+
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private Mono<CachedMovieInfo> load(String movieId) {
+        return loader.apply(movieId)
+                .map(CachedMovieInfo::found)
+                .onErrorResume(MovieInfoCache::isNotFound, ex -> Mono.just(CachedMovieInfo.notFound(ex.getMessage())));
+    }
+
+    private static boolean isNotFound(Throwable ex) {
+        return ex instanceof MoviesInfoClientException
+                && ((MoviesInfoClientException) ex).getStatusCode() == HttpStatus.NOT_FOUND.value();
+    }
+
+    private static class CachedMovieInfo {
+
+        private final MovieInfo movieInfo;
+        private final String notFoundMessage;
+
+        private CachedMovieInfo(MovieInfo movieInfo, String notFoundMessage) {
+            this.movieInfo = movieInfo;
+            this.notFoundMessage = notFoundMessage;
+        }
+
+        static CachedMovieInfo found(MovieInfo movieInfo) {
+            return new CachedMovieInfo(movieInfo, null);
+        }
+
+        static CachedMovieInfo notFound(String message) {
+            return new CachedMovieInfo(null, message);
+        }
+
+        boolean isNotFound() {
+            return movieInfo == null;
+        }
+
+        Mono<MovieInfo> toMono() {
+            if (isNotFound()) {
+                return Mono.error(new MoviesInfoClientException(notFoundMessage, HttpStatus.NOT_FOUND.value()));
+            }
+            return Mono.just(movieInfo);
+        }
+    }
+
+    private static class CachedMovieInfoExpiry implements Expiry<String, CachedMovieInfo> {
+
+        private final long expireAfterWriteNanos;
+        private final long negativeExpireAfterWriteNanos;
+
+        CachedMovieInfoExpiry(Duration expireAfterWrite, Duration negativeExpireAfterWrite) {
+            this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+            this.negativeExpireAfterWriteNanos = negativeExpireAfterWrite.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String movieId, CachedMovieInfo value, long currentTime) {
+            return value.isNotFound() ? negativeExpireAfterWriteNanos : expireAfterWriteNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String movieId, CachedMovieInfo value, long currentTime, long currentDuration) {
+            return expireAfterCreate(movieId, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String movieId, CachedMovieInfo value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.domain.MovieInfoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the movie info cache in line with movie-info-service by following the change feed of every instance.
+ * Reconnects with backoff whenever a stream ends or fails, resuming after the last event seen on that instance.
+ * Instances added or removed through discovery are picked up every {@code restClient.loadBalancer.refreshInterval}.
+ */
+@Component
+@Slf4j
+public class MovieInfoChangeListener {
+
+    @Autowired
+    private MoviesInfoRestClient moviesInfoRestClient;
+
+    @Autowired
+    private RestClientProperties restClientProperties;
+
+    // SSE ids, only meaningful to the process that sent them
+    private final Map<String, String> lastEventIds = new ConcurrentHashMap<>();
+
+    private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+
+    private volatile Disposable discoveryPolling = Disposables.disposed();
+
+    private boolean unsubscribed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe(){
+        var cacheConfig = restClientProperties.getMovieInfoCache();
+        MovieInfoCache movieInfoCache = moviesInfoRestClient.getMovieInfoCache();
+        if(movieInfoCache == null || !cacheConfig.isInvalidationEvents()){
+            return;
+        }
+
+        followInstances(movieInfoCache);
+        // discovery may read a file, so keep it off the parallel scheduler
+        discoveryPolling = Flux.interval(restClientProperties.getLoadBalancer().getRefreshInterval(), Schedulers.boundedElastic())
+                .subscribe(tick -> followInstances(movieInfoCache));
+    }
+
+    @PreDestroy
+    public synchronized void unsubscribe(){
+        unsubscribed = true;
+        discoveryPolling.dispose();
+        subscriptions.values().forEach(Disposable::dispose);
+        subscriptions.clear();
+    }
+
+    private synchronized void followInstances(MovieInfoCache movieInfoCache){
+        if(unsubscribed){
+            return;
+        }
+        List<String> instanceUrls = moviesInfoRestClient.getInstanceUrls();
+        subscriptions.keySet().removeIf(baseUrl -> {
+            if(instanceUrls.contains(baseUrl)){
+                return false;
+            }
+            log.info("No longer following the MovieInfo change feed of {}", baseUrl);
+            subscriptions.get(baseUrl).dispose();
+            lastEventIds.remove(baseUrl);
+            return true;
+        });
+        instanceUrls.stream()
+                .filter(baseUrl -> !subscriptions.containsKey(baseUrl))
+                .forEach(baseUrl -> subscriptions.put(baseUrl, follow(baseUrl, movieInfoCache)));
+    }
+
+    private Disposable follow(String baseUrl, MovieInfoCache movieInfoCache){
+        var cacheConfig = restClientProperties.getMovieInfoCache();
+        return Flux.defer(() -> moviesInfoRestClient.streamMovieInfoEvents(baseUrl, lastEventIds.get(baseUrl)))
+                .repeatWhen(completed -> completed.delayElements(cacheConfig.getReconnectMinBackoff()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, cacheConfig.getReconnectMinBackoff())
+                        .maxBackoff(cacheConfig.getReconnectMaxBackoff())
+                        .transientErrors(true)
+                        .doBeforeRetry(retrySignal -> log.warn("MovieInfo change feed of {} disconnected, reconnecting after event {} : {}",
+                                baseUrl, lastEventIds.get(baseUrl), retrySignal.failure().getMessage())))
+                .subscribe(serverSentEvent -> onEvent(baseUrl, movieInfoCache, serverSentEvent));
+    }
+
+    private void onEvent(String baseUrl, MovieInfoCache movieInfoCache, ServerSentEvent<MovieInfoEvent> serverSentEvent){
+        MovieInfoEvent event = serverSentEvent.data();
+        if(event == null){
+            // keep-alive comment
+            return;
+        }
+        log.debug("MovieInfo change event : {} ", event);
+        switch (event.getType()){
+            case CREATED:
+            case UPDATED:
+                movieInfoCache.put(event.getMovieInfo());
+                break;
+            case DELETED:
+                movieInfoCache.evict(event.getMovieInfoId());
+                break;
+            case RESET:
+                movieInfoCache.evictAll();
+                break;
+        }
+        if(serverSentEvent.id() != null){
+            lastEventIds.put(baseUrl, serverSentEvent.id());
+        }
+    }
+}
@@ -1,34 +1,115 @@
 package com.reactivespring.client;
 
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.config.RestClientProperties;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.loadbalancer.Endpoint;
+import com.reactivespring.loadbalancer.LoadBalancer;
+import com.reactivespring.loadbalancer.LoadBalancerRegistry;
+import com.reactivespring.resilience.ResilienceRegistry;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.ClientTracing;
+import com.reactivespring.util.Deadline;
 import com.reactivespring.util.RetryUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import javax.annotation.PostConstruct;
 import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class MoviesInfoRestClient {
 
+    static final String CLIENT_NAME = "movieInfo";
+
     @Autowired
     private WebClient webClient;
 
+    // one or more comma-separated base URLs
     @Value("${restClient.moviesInfoUrl}")
     private String moviesInfoUrl;
 
+    @Autowired
+    private LoadBalancerRegistry loadBalancerRegistry;
+
+    private LoadBalancer loadBalancer;
+
+    @Autowired
+    private RestClientProperties restClientProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ResilienceRegistry resilienceRegistry;
+
+    @Autowired
+    private RetryUtil retryUtil;
+
+    @Autowired
+    private ClientMetrics clientMetrics;
+
+    @Autowired
+    private ClientTracing clientTracing;
+
+    private MovieInfoCache movieInfoCache;
+
+    @PostConstruct
+    public void initLoadBalancer(){
+        loadBalancer = loadBalancerRegistry.register(CLIENT_NAME, moviesInfoUrl);
+    }
+
+    @PostConstruct
+    public void initCache(){
+        if(restClientProperties.getMovieInfoCache().isEnabled()){
+            movieInfoCache = new MovieInfoCache(restClientProperties.getMovieInfoCache(), this::fetchMovieInfo, meterRegistry);
+        }
+    }
+
+    public MovieInfoCache getMovieInfoCache(){
+        return movieInfoCache;
+    }
+
     public Mono<MovieInfo> retrieveMovieInfo(String movieId){
-     String url = moviesInfoUrl.concat("/{id}");
+        Mono<MovieInfo> movieInfo = movieInfoCache == null
+                ? fetchMovieInfo(movieId)
+                : movieInfoCache.get(movieId).transform(Deadline::timeout);
+        return movieInfo
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveMovieInfo", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveMovieInfo", call));
+    }
+
+    private Mono<MovieInfo> fetchMovieInfo(String movieId){
+        return Mono.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return resilienceRegistry.hedge(CLIENT_NAME, attempt -> loadBalancer.execute(tried, baseUrl -> requestMovieInfo(baseUrl, movieId))
+                                    .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call)))
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout);
+    }
+
+    private Mono<MovieInfo> requestMovieInfo(String baseUrl, String movieId){
+     String url = baseUrl.concat("/{id}");
      return webClient.get()
              .uri(url, movieId)
              .retrieve()
@@ -59,8 +140,69 @@ public class MoviesInfoRestClient {
                                  )
                          ));
              })
-             .bodyToMono(MovieInfo.class)
+             .bodyToMono(MovieInfo.class);
              //.retry(3).log();
-             .retryWhen(RetryUtil.retrySpec());
+    }
+
+    public Flux<MovieInfo> retrieveMovieInfos(List<String> movieIds){
+        return Flux.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return loadBalancer.executeMany(tried, baseUrl -> requestMovieInfos(baseUrl, movieIds))
+                            .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call))
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout)
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveMovieInfos", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveMovieInfos", call));
+    }
+
+    private Flux<MovieInfo> requestMovieInfos(String baseUrl, List<String> movieIds){
+        String url = baseUrl.concat("/bulk");
+        return webClient.post()
+                .uri(url)
+                .bodyValue(movieIds)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new MoviesInfoClientException(
+                                            responseMessage, clientResponse.statusCode().value()
+                                    )
+                            ));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new MoviesInfoServerException(
+                                            "Server Exception in MoviesInfoService "+ responseMessage
+                                    )
+                            ));
+                })
+                .bodyToFlux(MovieInfo.class);
+    }
+
+    /**
+     * Base URLs of every movie-info-service instance, each of which only publishes the changes made through it.
+     */
+    public List<String> getInstanceUrls(){
+        return loadBalancer.getEndpoints().stream()
+                .map(Endpoint::getUrl)
+                .collect(Collectors.toList());
+    }
+
+    // long-lived and bound to one instance, so it bypasses the load balancer
+    public Flux<ServerSentEvent<MovieInfoEvent>> streamMovieInfoEvents(String baseUrl, String lastEventId){
+        return Flux.defer(() -> webClient.get()
+                .uri(baseUrl.concat("/events"))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(httpHeaders -> {
+                    if(lastEventId != null){
+                        httpHeaders.set("Last-Event-ID", lastEventId);
+                    }
+                })
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<MovieInfoEvent>>() {}));
     }
 }
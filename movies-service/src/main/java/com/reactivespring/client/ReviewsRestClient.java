@@ -2,13 +2,24 @@ package com.reactivespring.client;
 
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewPage;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.exception.CallNotPermittedException;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.loadbalancer.LoadBalancer;
+import com.reactivespring.loadbalancer.LoadBalancerRegistry;
+import com.reactivespring.resilience.ResilienceRegistry;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.ClientTracing;
+import com.reactivespring.util.Deadline;
+import com.reactivespring.util.RetryUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -16,23 +27,74 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+
 @Component
 @Slf4j
 public class ReviewsRestClient {
     @Autowired
     private WebClient webClient;
 
+    static final String CLIENT_NAME = "reviews";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    @Autowired
+    private ResilienceRegistry resilienceRegistry;
+
+    @Autowired
+    private RetryUtil retryUtil;
+
+    @Autowired
+    private ClientMetrics clientMetrics;
+
+    @Autowired
+    private ClientTracing clientTracing;
+
+    // one or more comma-separated base URLs
     @Value("${restClient.reviewsUrl}")
     private String reviewsUrl;
 
+    @Autowired
+    private LoadBalancerRegistry loadBalancerRegistry;
+
+    private LoadBalancer loadBalancer;
+
+    @PostConstruct
+    public void initLoadBalancer(){
+        loadBalancer = loadBalancerRegistry.register(CLIENT_NAME, reviewsUrl);
+    }
+
 
     public Flux<Review> retrieveReviews(String movieId){
-        String url = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
-                .queryParam("movieInfoId", movieId)
-                .buildAndExpand().toUriString();
+        // hedged as a whole, a hedge that wins halfway through a stream of reviews would repeat some of them
+        return Flux.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return resilienceRegistry.hedge(CLIENT_NAME, attempt -> loadBalancer.execute(tried, baseUrl -> requestReviews(baseUrl, movieId)
+                                            .collectList())
+                                    .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call)))
+                            .flatMapIterable(reviews -> reviews)
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout)
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveReviews", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveReviews", call))
+                // a movie without reviews beats no movie while movies-review-service is unhealthy
+                .onErrorResume(CallNotPermittedException.class, ex -> {
+                    log.warn("Returning no reviews for movie {} : {}", movieId, ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    private Flux<Review> requestReviews(String baseUrl, String movieId){
+        // a template rather than the expanded URL, so that http.client.requests is not tagged with movie ids
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .queryParam("movieInfoId", "{movieInfoId}")
+                .build().toUriString();
 
         return webClient.get()
-                .uri(url)
+                .uri(url, movieId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                     log.info("Status code is : {} ", clientResponse.statusCode().value());
@@ -42,7 +104,7 @@ public class ReviewsRestClient {
                     return clientResponse.bodyToMono(String.class)
                             .flatMap(responseMessage -> Mono.error(
                                     new ReviewsClientException(
-                                            responseMessage
+                                            responseMessage, clientResponse.statusCode().value()
                                     )
                             ));
                 })
@@ -60,4 +122,154 @@ public class ReviewsRestClient {
                 })
                 .bodyToFlux(Review.class);
     }
+
+    public Mono<Map<String, List<Review>>> retrieveReviewsByMovieIds(List<String> movieIds){
+        return Mono.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return loadBalancer.execute(tried, baseUrl -> requestReviewsByMovieIds(baseUrl, movieIds))
+                            .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call))
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout)
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveReviewsByMovieIds", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveReviewsByMovieIds", call))
+                .onErrorResume(CallNotPermittedException.class, ex -> {
+                    log.warn("Returning no reviews for movies {} : {}", movieIds, ex.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Map.of());
+    }
+
+    private Mono<Map<String, List<Review>>> requestReviewsByMovieIds(String baseUrl, List<String> movieIds){
+        String url = baseUrl.concat("/byMovie");
+
+        return webClient.post()
+                .uri(url)
+                .bodyValue(movieIds)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    if(clientResponse.statusCode().equals(HttpStatus.NOT_FOUND)){
+                        return Mono.empty();
+                    }
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsClientException(
+                                            responseMessage, clientResponse.statusCode().value()
+                                    )
+                            ));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsServerException(
+                                            "Server Exception in ReviewsService "+ responseMessage
+                                    )
+                            ));
+                })
+                .bodyToMono(new ParameterizedTypeReference<Map<String, List<Review>>>() {});
+    }
+
+    public Mono<ReviewStats> retrieveReviewStats(String movieId){
+        return Mono.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return loadBalancer.execute(tried, baseUrl -> requestReviewStats(baseUrl, movieId))
+                            .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call))
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout)
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveReviewStats", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveReviewStats", call))
+                .onErrorResume(CallNotPermittedException.class, ex -> {
+                    log.warn("Returning no review stats for movie {} : {}", movieId, ex.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<ReviewStats> requestReviewStats(String baseUrl, String movieId){
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/stats")
+                .queryParam("movieInfoId", "{movieInfoId}")
+                .build().toUriString();
+
+        return webClient.get()
+                .uri(url, movieId)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsClientException(
+                                            responseMessage, clientResponse.statusCode().value()
+                                    )
+                            ));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsServerException(
+                                            "Server Exception in ReviewsService "+ responseMessage
+                                    )
+                            ));
+                })
+                .bodyToMono(ReviewStats.class);
+    }
+
+    /**
+     * The first limit reviews of the movie ordered by sort (recent or rating), limited by movies-review-service,
+     * together with the movie's total review count.
+     */
+    public Mono<ReviewPage> retrieveTopReviews(String movieId, int limit, String sort){
+        return Mono.defer(() -> {
+                    var tried = LoadBalancer.newTriedSet();
+                    return loadBalancer.execute(tried, baseUrl -> requestTopReviews(baseUrl, movieId, limit, sort))
+                            .transform(call -> resilienceRegistry.protect(CLIENT_NAME, call))
+                            .retryWhen(retryUtil.retrySpec(CLIENT_NAME));
+                })
+                .transform(Deadline::timeout)
+                .transform(call -> clientMetrics.timed(CLIENT_NAME, "retrieveTopReviews", call))
+                .transform(call -> clientTracing.traced(CLIENT_NAME, "retrieveTopReviews", call))
+                .onErrorResume(CallNotPermittedException.class, ex -> {
+                    log.warn("Returning no reviews for movie {} : {}", movieId, ex.getMessage());
+                    return Mono.just(new ReviewPage(List.of(), null));
+                });
+    }
+
+    private Mono<ReviewPage> requestTopReviews(String baseUrl, String movieId, int limit, String sort){
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .queryParam("movieInfoId", "{movieInfoId}")
+                .queryParam("sort", "{sort}")
+                .queryParam("limit", "{limit}")
+                .build().toUriString();
+
+        return webClient.get()
+                .uri(url, movieId, sort, limit)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsClientException(
+                                            responseMessage, clientResponse.statusCode().value()
+                                    )
+                            ));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                    log.info("Status code is : {} ", clientResponse.statusCode().value());
+                    return clientResponse.bodyToMono(String.class)
+                            .flatMap(responseMessage -> Mono.error(
+                                    new ReviewsServerException(
+                                            "Server Exception in ReviewsService "+ responseMessage
+                                    )
+                            ));
+                })
+                .toEntityList(Review.class)
+                .map(response -> {
+                    String total = response.getHeaders().getFirst(TOTAL_COUNT_HEADER);
+                    List<Review> reviews = response.getBody() == null ? List.of() : response.getBody();
+                    return new ReviewPage(reviews, total == null ? reviews.size() : Long.parseLong(total));
+                });
+    }
 }
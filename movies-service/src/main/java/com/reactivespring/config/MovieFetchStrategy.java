@@ -0,0 +1,10 @@
+package com.reactivespring.config;
+
+public enum MovieFetchStrategy {
+
+    // fetch reviews only after movie info has been retrieved
+    SEQUENTIAL,
+
+    // fetch reviews speculatively alongside movie info and discard them if movie info fails
+    PARALLEL
+}
@@ -0,0 +1,159 @@
+package com.reactivespring.config;
+
+import com.reactivespring.loadbalancer.LoadBalancingStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.netty.http.HttpProtocol;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rest-client")
+public class RestClientProperties {
+
+    private Pool pool = new Pool();
+
+    // per "host:port" overrides of the pool settings above
+    private Map<String, Pool> hosts = new LinkedHashMap<>();
+
+    private Timeouts timeouts = new Timeouts();
+
+    // HTTP11, H2C or both; H2C falls back to HTTP/1.1 when listed together
+    private List<HttpProtocol> protocols = List.of(HttpProtocol.HTTP11);
+
+    private boolean compress = true;
+
+    private MovieInfoCache movieInfoCache = new MovieInfoCache();
+
+    // one circuit breaker and bulkhead per downstream service
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private Retry retry = new Retry();
+
+    private Deadline deadline = new Deadline();
+
+    private Hedging hedging = new Hedging();
+
+    private LoadBalancer loadBalancer = new LoadBalancer();
+
+    @Data
+    public static class Pool {
+        private Integer maxConnections = 100;
+        private Integer pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class MovieInfoCache {
+        private boolean enabled = false;
+        private Long maximumSize = 10_000L;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+        private Duration refreshAfterWrite = Duration.ofMinutes(5);
+        private Duration negativeExpireAfterWrite = Duration.ofSeconds(30);
+        // follow movie-info-service's change feed to evict or refresh entries as they change
+        private boolean invalidationEvents = true;
+        private Duration reconnectMinBackoff = Duration.ofSeconds(1);
+        private Duration reconnectMaxBackoff = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        // the failure rate is taken over this many most recent calls
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private int failureRateThreshold = 50;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        // trial calls let through once the wait is over, all of them have to succeed to close again
+        private int permittedCallsInHalfOpenState = 3;
+    }
+
+    @Data
+    public static class Bulkhead {
+        private boolean enabled = true;
+        private int maxConcurrentCalls = 100;
+    }
+
+    @Data
+    public static class Retry {
+        // retries after the first call, so a call is made at most maxRetries + 1 times
+        private int maxRetries = 3;
+        // the n-th retry waits a random time between zero and min(maxBackoff, minBackoff * 2^n)
+        private Duration minBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private Budget budget = new Budget();
+
+        @Data
+        public static class Budget {
+            private boolean enabled = true;
+            // retries allowed as a percentage of all calls, shared by every client
+            private int percent = 10;
+            private int minRetriesPerSecond = 5;
+            private int maxTokens = 100;
+        }
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        // a second attempt is sent once the first takes longer than this percentile of recent successful calls
+        private double percentile = 95;
+        private Duration minDelay = Duration.ofMillis(10);
+        // used until minSamples latencies have been recorded
+        private Duration initialDelay = Duration.ofMillis(100);
+        private int windowSize = 1000;
+        private int minSamples = 100;
+        // hedges allowed as a percentage of all calls, up to maxBudget hedges saved up during quiet periods
+        private int budgetPercent = 5;
+        private int maxBudget = 10;
+    }
+
+    @Data
+    public static class LoadBalancer {
+        private LoadBalancingStrategy.Type strategy = LoadBalancingStrategy.Type.ROUND_ROBIN;
+        // per client ("movieInfo", "reviews") file with one base URL per line, used instead of the URL property
+        private Map<String, String> discoveryFiles = new LinkedHashMap<>();
+        private Duration refreshInterval = Duration.ofSeconds(30);
+        // how quickly older latencies stop counting for P2C_EWMA
+        private Duration ewmaDecay = Duration.ofSeconds(10);
+        // latency P2C_EWMA counts for a failed call that took less than this
+        private Duration failurePenalty = Duration.ofSeconds(1);
+        private OutlierDetection outlierDetection = new OutlierDetection();
+    }
+
+    @Data
+    public static class OutlierDetection {
+        private boolean enabled = true;
+        private int consecutiveFailures = 5;
+        // the n-th ejection in a row lasts n times this, up to maxEjectionTime
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+        private Duration maxEjectionTime = Duration.ofMinutes(5);
+        private int maxEjectionPercent = 50;
+    }
+
+    @Data
+    public static class Deadline {
+        // time a request gets when the caller doesn't send X-Request-Timeout
+        private Duration defaultTimeout = Duration.ofSeconds(10);
+        // upper bound for the timeout a caller may ask for
+        private Duration maxTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Timeouts {
+        private Duration connect = Duration.ofSeconds(2);
+        private Duration response = Duration.ofSeconds(5);
+        private Duration read = Duration.ofSeconds(5);
+        private Duration write = Duration.ofSeconds(5);
+        // read timeout for text/event-stream responses, which stay open between events
+        private Duration stream = Duration.ofSeconds(60);
+    }
+}
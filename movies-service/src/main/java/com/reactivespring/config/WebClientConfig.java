@@ -1,15 +1,110 @@
 package com.reactivespring.config;
 
 
+import com.reactivespring.util.Deadline;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@EnableConfigurationProperties(RestClientProperties.class)
 public class WebClientConfig {
 
-    @Bean
-    public WebClient webClient(WebClient.Builder builder){
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(RestClientProperties properties){
+        var pool = properties.getPool();
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("movies-service")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictInBackground())
+                // publishes active, idle and pending connection gauges per remote host
+                .metrics(true);
+
+        properties.getHosts().forEach((hostAndPort, hostPool) -> {
+            builder.forRemoteHost(remoteHost(hostAndPort), spec -> spec
+                    .maxConnections(hostPool.getMaxConnections())
+                    .pendingAcquireMaxCount(hostPool.getPendingAcquireMaxCount())
+                    .pendingAcquireTimeout(hostPool.getPendingAcquireTimeout())
+                    .maxIdleTime(hostPool.getMaxIdleTime())
+                    .maxLifeTime(hostPool.getMaxLifeTime())
+                    .evictInBackground(hostPool.getEvictInBackground())
+                    .metrics(true));
+        });
         return builder.build();
     }
+
+    // the pool of a remote host is looked up by host and port, so both must be given
+    static InetSocketAddress remoteHost(String hostAndPort){
+        int separator = hostAndPort.lastIndexOf(':');
+        if(separator > 0){
+            try {
+                int port = Integer.parseInt(hostAndPort.substring(separator + 1));
+                if(port > 0 && port <= 65535){
+                    return InetSocketAddress.createUnresolved(hostAndPort.substring(0, separator), port);
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("restClient.hosts entry \"" + hostAndPort + "\" must be host:port");
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider, RestClientProperties properties){
+        var timeouts = properties.getTimeouts();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(properties.getProtocols().toArray(HttpProtocol[]::new))
+                .compress(properties.isCompress())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeouts.getConnect().toMillis())
+                .responseTimeout(timeouts.getResponse())
+                // handlers added per request are removed again when the connection goes back to the pool
+                .doOnRequest((request, connection) -> {
+                    connection.addHandlerLast(new WriteTimeoutHandler(timeouts.getWrite().toMillis(), TimeUnit.MILLISECONDS));
+                    if(isEventStream(request)){
+                        request.responseTimeout(timeouts.getStream());
+                    } else {
+                        connection.addHandlerLast(new ReadTimeoutHandler(timeouts.getRead().toMillis(), TimeUnit.MILLISECONDS));
+                    }
+                });
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(WebClientConfig::forwardDeadline)
+                .build();
+    }
+
+    // lets movie-info-service and movies-review-service give up on work nobody is waiting for anymore
+    private static Mono<ClientResponse> forwardDeadline(ClientRequest request, ExchangeFunction next){
+        return Mono.deferContextual(context -> Deadline.from(context)
+                .map(deadline -> next.exchange(ClientRequest.from(request)
+                        .header(Deadline.HEADER, String.valueOf(Math.max(0, deadline.remaining().toMillis())))
+                        .build()))
+                .orElseGet(() -> next.exchange(request)));
+    }
+
+    private static boolean isEventStream(HttpClientRequest request){
+        String accept = request.requestHeaders().get(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
 }
@@ -3,30 +3,80 @@ package com.reactivespring.controller;
 
 import com.reactivespring.client.MoviesInfoRestClient;
 import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.config.MovieFetchStrategy;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/movies")
 public class MoviesController {
 
+    // what movies-review-service accepts, checked here so that callers get a 400 rather than a failed downstream call
+    static final Set<String> REVIEWS_SORTS = Set.of("recent", "rating");
+    static final int MAX_REVIEWS_LIMIT = 1000;
+
     @Autowired
     private MoviesInfoRestClient moviesInfoRestClient;
 
     @Autowired
     private ReviewsRestClient reviewsRestClient;
 
+    @Value("${movies.fetchStrategy:SEQUENTIAL}")
+    private MovieFetchStrategy fetchStrategy;
+
 
     @GetMapping("/{id}")
-    public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId){
+    public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId,
+                                         @RequestParam(value = "view", required = false) String view,
+                                         @RequestParam(value = "reviewsLimit", required = false) Integer reviewsLimit,
+                                         @RequestParam(value = "reviewsSort", required = false) String reviewsSort){
+
+        if("summary".equalsIgnoreCase(view)){
+            return retrieveMovieSummaryById(movieId);
+        }
+
+        if(reviewsSort != null && !REVIEWS_SORTS.contains(reviewsSort.toLowerCase())){
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "reviewsSort must be one of recent,rating"));
+        }
+        if(reviewsLimit != null){
+            if(reviewsLimit < 1 || reviewsLimit > MAX_REVIEWS_LIMIT){
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "reviewsLimit must be between 1 and " + MAX_REVIEWS_LIMIT));
+            }
+            return retrieveMovieWithTopReviewsById(movieId, reviewsLimit, reviewsSort == null ? "recent" : reviewsSort);
+        }
+        if(reviewsSort != null){
+            // the full review list has no order, sorting only picks the top reviews
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "reviewsSort requires reviewsLimit"));
+        }
+
+        if(fetchStrategy == MovieFetchStrategy.PARALLEL){
+            return retrieveMovieByIdInParallel(movieId);
+        }
 
         return moviesInfoRestClient.retrieveMovieInfo(movieId)
                 .flatMap(movieInfo -> {
@@ -36,6 +86,91 @@ public class MoviesController {
                 });
     }
 
+    /**
+     * Movie info with the review aggregates precomputed by movies-review-service instead of every review.
+     * The aggregates are left out while movies-review-service is unavailable.
+     */
+    private Mono<Movie> retrieveMovieSummaryById(String movieId){
+        Mono<Optional<ReviewStats>> reviewStats = reviewsRestClient.retrieveReviewStats(movieId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+
+        if(fetchStrategy == MovieFetchStrategy.PARALLEL){
+            return zipWithMovieInfo(moviesInfoRestClient.retrieveMovieInfo(movieId), reviewStats,
+                    (movieInfo, stats) -> Movie.summary(movieInfo, stats.orElse(null)));
+        }
+
+        return moviesInfoRestClient.retrieveMovieInfo(movieId)
+                .flatMap(movieInfo -> reviewStats
+                        .map(stats -> Movie.summary(movieInfo, stats.orElse(null))));
+    }
+
+    private Mono<Movie> retrieveMovieWithTopReviewsById(String movieId, int reviewsLimit, String reviewsSort){
+        if(fetchStrategy == MovieFetchStrategy.PARALLEL){
+            return zipWithMovieInfo(moviesInfoRestClient.retrieveMovieInfo(movieId),
+                    reviewsRestClient.retrieveTopReviews(movieId, reviewsLimit, reviewsSort),
+                    Movie::withTopReviews);
+        }
+
+        return moviesInfoRestClient.retrieveMovieInfo(movieId)
+                .flatMap(movieInfo -> reviewsRestClient.retrieveTopReviews(movieId, reviewsLimit, reviewsSort)
+                        .map(reviewPage -> Movie.withTopReviews(movieInfo, reviewPage)));
+    }
+
+    private Mono<Movie> retrieveMovieByIdInParallel(String movieId){
+        return zipWithMovieInfo(moviesInfoRestClient.retrieveMovieInfo(movieId),
+                reviewsRestClient.retrieveReviews(movieId).collectList(),
+                Movie::new);
+    }
+
+    /**
+     * Both calls at once, but a reviews error is held back until movie info has arrived, so that a movie info
+     * failure such as a 404 is what the caller gets. Zip still cancels the in-flight reviews call as soon as movie
+     * info fails.
+     */
+    private static <R> Mono<Movie> zipWithMovieInfo(Mono<MovieInfo> movieInfo, Mono<R> reviews,
+                                                    BiFunction<MovieInfo, R, Movie> combinator){
+        return Mono.zip(movieInfo, reviews.materialize())
+                .flatMap(zipped -> {
+                    Signal<R> reviewsSignal = zipped.getT2();
+                    if(reviewsSignal.isOnError()){
+                        return Mono.error(reviewsSignal.getThrowable());
+                    }
+                    // an empty reviews call leaves no movie, as with a plain zip
+                    return Mono.justOrEmpty(reviewsSignal.get())
+                            .map(value -> combinator.apply(zipped.getT1(), value));
+                });
+    }
+
+    @GetMapping
+    public Flux<Movie> retrieveMoviesByIds(@RequestParam("ids") List<String> movieIds){
+        return retrieveMovies(movieIds);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Movie> streamMoviesByIds(@RequestParam("ids") List<String> movieIds){
+        return retrieveMovies(movieIds);
+    }
+
+    /**
+     * One bulk call to each backend, however many ids are requested.
+     * Movies are emitted in the order movie-info-service returns them, as they arrive once the reviews are in;
+     * unknown ids are skipped.
+     */
+    private Flux<Movie> retrieveMovies(List<String> movieIds){
+        List<String> distinctIds = movieIds.stream()
+                .distinct()
+                .collect(Collectors.toList());
+        if(distinctIds.isEmpty()){
+            return Flux.empty();
+        }
 
+        Mono<Map<String, List<Review>>> reviews = reviewsRestClient.retrieveReviewsByMovieIds(distinctIds).cache();
+        Flux<Movie> movies = moviesInfoRestClient.retrieveMovieInfos(distinctIds)
+                .flatMapSequential(movieInfo -> reviews
+                        .map(reviewsByMovie -> new Movie(movieInfo, reviewsByMovie.getOrDefault(movieInfo.getMovieInfoId(), List.of()))));
+        // merge subscribes to the reviews first, so both bulk calls are sent at once
+        return Flux.merge(reviews.then(Mono.empty()), movies);
+    }
 
 }
@@ -1,6 +1,7 @@
 package com.reactivespring.domain;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,5 +14,24 @@ import java.util.List;
 public class Movie {
 
     private MovieInfo movieInfo;
+    // left out of the summary view, which carries reviewStats instead
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Review> reviewList;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ReviewStats reviewStats;
+    // set when reviewList is limited to the top reviews
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long reviewsTotal;
+
+    public Movie(MovieInfo movieInfo, List<Review> reviewList) {
+        this(movieInfo, reviewList, null, null);
+    }
+
+    public static Movie summary(MovieInfo movieInfo, ReviewStats reviewStats) {
+        return new Movie(movieInfo, null, reviewStats, null);
+    }
+
+    public static Movie withTopReviews(MovieInfo movieInfo, ReviewPage reviewPage) {
+        return new Movie(movieInfo, reviewPage.getReviews(), null, reviewPage.getTotal());
+    }
 }
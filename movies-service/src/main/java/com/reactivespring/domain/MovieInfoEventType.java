@@ -0,0 +1,8 @@
+package com.reactivespring.domain;
+
+public enum MovieInfoEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    RESET
+}
@@ -0,0 +1,19 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The first reviews of a movie in the requested order, and how many reviews the movie has in total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewPage {
+
+    private List<Review> reviews;
+    private Long total;
+}
@@ -0,0 +1,19 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewStats {
+
+    private Long movieInfoId;
+    private Long count;
+    private Long ratingCount;
+    private Double averageRating;
+    private Map<String, Long> histogram;
+}
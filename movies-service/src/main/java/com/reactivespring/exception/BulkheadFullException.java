@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class BulkheadFullException extends CallNotPermittedException {
+
+    public BulkheadFullException(String name) {
+        super("Too many concurrent calls to " + name);
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class NoAvailableEndpointException extends CallNotPermittedException {
+
+    public NoAvailableEndpointException(String client) {
+        super("No " + client + " instance is configured");
+    }
+}
@@ -2,9 +2,19 @@ package com.reactivespring.exception;
 
 public class ReviewsClientException extends RuntimeException{
     private String message;
+    private Integer statusCode;
 
     public ReviewsClientException(String message) {
+        this(message, 400);
+    }
+
+    public ReviewsClientException(String message, Integer statusCode) {
         super(message);
         this.message = message;
+        this.statusCode = statusCode;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
     }
 }
@@ -1,11 +1,16 @@
 package com.reactivespring.exceptionhandler;
 
+import com.reactivespring.exception.CallNotPermittedException;
 import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.ReviewsClientException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 @Slf4j
@@ -18,8 +23,36 @@ public class GlobalErrorHandler {
              .body(exception.getMessage());
     }
 
+    @ExceptionHandler(ReviewsClientException.class)
+    public ResponseEntity<String> handleReviewsClientException(ReviewsClientException exception){
+        log.error("Exception Caught in handleReviewsClientException : {} ", exception.getMessage());
+        return ResponseEntity.status(exception.getStatusCode())
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<String> handleResponseStatusException(ResponseStatusException exception){
+        log.error("Exception Caught in handleResponseStatusException : {} ", exception.getMessage());
+        return ResponseEntity.status(exception.getStatus())
+                .body(exception.getReason());
+    }
+
+    @ExceptionHandler(CallNotPermittedException.class)
+    public ResponseEntity<String> handleCallNotPermittedException(CallNotPermittedException exception){
+        log.error("Exception Caught in handleCallNotPermittedException : {} ", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeoutException(TimeoutException exception){
+        log.error("Exception Caught in handleTimeoutException : {} ", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body("Request deadline exceeded");
+    }
+
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleRuntimeException( MoviesInfoClientException exception){
+    public ResponseEntity<String> handleRuntimeException( RuntimeException exception){
         log.error("Exception Caught in handleRuntimeException : {} ", exception.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(exception.getMessage());
@@ -0,0 +1,52 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.util.Deadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Starts the deadline of every request, from the X-Request-Timeout header or the configured default,
+ * and puts it in the Reactor Context for the REST clients.
+ */
+@Component
+public class DeadlineWebFilter implements WebFilter {
+
+    @Autowired
+    private RestClientProperties restClientProperties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration timeout;
+        try {
+            timeout = timeout(exchange.getRequest().getHeaders().getFirst(Deadline.HEADER));
+        } catch (NumberFormatException ex) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    Deadline.HEADER + " must be a number of milliseconds"));
+        }
+        var deadline = Deadline.after(timeout);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, deadline));
+    }
+
+    private Duration timeout(String header) {
+        var config = restClientProperties.getDeadline();
+        if (header == null) {
+            return config.getDefaultTimeout();
+        }
+        long millis = Long.parseLong(header.trim());
+        if (millis < 0) {
+            throw new NumberFormatException(header);
+        }
+        Duration requested = Duration.ofMillis(millis);
+        return requested.compareTo(config.getMaxTimeout()) > 0 ? config.getMaxTimeout() : requested;
+    }
+}
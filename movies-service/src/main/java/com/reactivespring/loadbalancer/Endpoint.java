@@ -0,0 +1,90 @@
+package com.reactivespring.loadbalancer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One instance of a downstream service and what the load balancer has seen of it: calls in flight,
+ * a latency average that decays over time and consecutive failures for outlier ejection.
+ */
+public class Endpoint {
+
+    private final String url;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double latencyEwmaNanos;
+    private long lastLatencyUpdateNanos;
+    private int consecutiveFailures;
+    private int ejections;
+    private long ejectedUntilNanos;
+    private boolean ejected;
+
+    public Endpoint(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void started() {
+        outstanding.incrementAndGet();
+    }
+
+    void finished() {
+        outstanding.decrementAndGet();
+    }
+
+    synchronized void recordLatency(long latencyNanos, long nowNanos, Duration decay) {
+        if (lastLatencyUpdateNanos == 0) {
+            latencyEwmaNanos = latencyNanos;
+        } else {
+            // the older a sample the less it counts, independent of how many calls came in since
+            double weight = Math.exp(-(double) (nowNanos - lastLatencyUpdateNanos) / decay.toNanos());
+            latencyEwmaNanos = latencyEwmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastLatencyUpdateNanos = nowNanos;
+    }
+
+    public synchronized double getLatencyEwmaNanos() {
+        return latencyEwmaNanos;
+    }
+
+    synchronized void succeeded() {
+        consecutiveFailures = 0;
+        if (!ejected) {
+            ejections = 0;
+        }
+    }
+
+    /**
+     * @return the number of consecutive failures so far
+     */
+    synchronized int failed() {
+        return ++consecutiveFailures;
+    }
+
+    synchronized void eject(long nowNanos, Duration baseEjectionTime, Duration maxEjectionTime) {
+        ejections++;
+        long ejectionNanos = Math.min(baseEjectionTime.toNanos() * ejections, maxEjectionTime.toNanos());
+        ejectedUntilNanos = nowNanos + ejectionNanos;
+        ejected = true;
+        consecutiveFailures = 0;
+    }
+
+    synchronized boolean isEjected(long nowNanos) {
+        if (ejected && nowNanos - ejectedUntilNanos >= 0) {
+            ejected = false;
+        }
+        return ejected;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,90 @@
+package com.reactivespring.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Source of the base URLs of a downstream's instances.
+ */
+public interface EndpointDiscovery {
+
+    List<String> getUrls();
+
+    class Static implements EndpointDiscovery {
+
+        private final List<String> urls;
+
+        public Static(List<String> urls) {
+            this.urls = List.copyOf(urls);
+        }
+
+        @Override
+        public List<String> getUrls() {
+            return urls;
+        }
+    }
+
+    /**
+     * Reads one URL per line from a file, blank lines and lines starting with # are skipped. The file is checked
+     * for changes at most once per refresh interval, if it can't be read the last known URLs are kept.
+     */
+    @Slf4j
+    class File implements EndpointDiscovery {
+
+        private final Path path;
+        private final long refreshIntervalNanos;
+
+        private volatile List<String> urls;
+        private FileTime lastModified;
+        private long lastCheckNanos;
+
+        public File(Path path, Duration refreshInterval) {
+            this.path = path;
+            this.refreshIntervalNanos = refreshInterval.toNanos();
+            try {
+                this.urls = read();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read endpoints from " + path, ex);
+            }
+            this.lastCheckNanos = System.nanoTime();
+        }
+
+        @Override
+        public List<String> getUrls() {
+            refreshIfDue();
+            return urls;
+        }
+
+        private synchronized void refreshIfDue() {
+            long now = System.nanoTime();
+            if (now - lastCheckNanos < refreshIntervalNanos) {
+                return;
+            }
+            lastCheckNanos = now;
+            try {
+                if (!Files.getLastModifiedTime(path).equals(lastModified)) {
+                    urls = read();
+                    log.info("Endpoints in {} changed to {}", path, urls);
+                }
+            } catch (IOException ex) {
+                log.warn("Cannot re-read endpoints from {}, keeping {} : {}", path, urls, ex.getMessage());
+            }
+        }
+
+        private List<String> read() throws IOException {
+            lastModified = Files.getLastModifiedTime(path);
+            return Files.readAllLines(path).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.reactivespring.loadbalancer;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.NoAvailableEndpointException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads the calls to one downstream over its instances.
+ * <p>
+ * Instances failing {@code consecutiveFailures} times in a row are ejected for a while, longer every time it
+ * happens again, but never more than {@code maxEjectionPercent} of them at once.
+ */
+@Slf4j
+public class LoadBalancer {
+
+    private final String name;
+    private final EndpointDiscovery discovery;
+    private final LoadBalancingStrategy strategy;
+    private final RestClientProperties.LoadBalancer config;
+    private final Predicate<Throwable> isFailure;
+    private final LongSupplier nanoTime;
+
+    private final Runnable onEjection;
+
+    private volatile List<String> urls = List.of();
+    private volatile List<Endpoint> endpoints = List.of();
+
+    public LoadBalancer(String name, EndpointDiscovery discovery, RestClientProperties.LoadBalancer config,
+                        Predicate<Throwable> isFailure, Runnable onEjection) {
+        this(name, discovery, config, isFailure, onEjection, System::nanoTime);
+    }
+
+    LoadBalancer(String name, EndpointDiscovery discovery, RestClientProperties.LoadBalancer config,
+                 Predicate<Throwable> isFailure, Runnable onEjection, LongSupplier nanoTime) {
+        this.name = name;
+        this.discovery = discovery;
+        this.strategy = config.getStrategy().create();
+        this.config = config;
+        this.isFailure = isFailure;
+        this.onEjection = onEjection;
+        this.nanoTime = nanoTime;
+        refresh();
+    }
+
+    /**
+     * Calls the chosen instance's base URL. Instances in {@code tried} are only chosen again once every instance
+     * has been tried, so that retries and hedges of one call go to other instances where there are some.
+     */
+    public <T> Mono<T> execute(Set<Endpoint> tried, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            Endpoint endpoint = choose(tried);
+            tried.add(endpoint);
+            endpoint.started();
+            long start = nanoTime.getAsLong();
+            return call.apply(endpoint.getUrl())
+                    .doOnSuccess(value -> succeeded(endpoint, start))
+                    .doOnError(ex -> failed(endpoint, start, ex))
+                    .doFinally(signalType -> endpoint.finished());
+        });
+    }
+
+    public <T> Flux<T> executeMany(Set<Endpoint> tried, Function<String, Flux<T>> call) {
+        return Flux.defer(() -> {
+            Endpoint endpoint = choose(tried);
+            tried.add(endpoint);
+            endpoint.started();
+            long start = nanoTime.getAsLong();
+            return call.apply(endpoint.getUrl())
+                    .doOnComplete(() -> succeeded(endpoint, start))
+                    .doOnError(ex -> failed(endpoint, start, ex))
+                    .doFinally(signalType -> endpoint.finished());
+        });
+    }
+
+    /**
+     * Set to pass to every attempt of one call, retries and hedges included.
+     */
+    public static Set<Endpoint> newTriedSet() {
+        return ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Base URL of an available instance, for long-lived calls that shouldn't count towards latency or load.
+     */
+    public String chooseUrl() {
+        return choose(Set.of()).getUrl();
+    }
+
+    public Endpoint choose(Set<Endpoint> tried) {
+        refresh();
+        List<Endpoint> all = endpoints;
+        if (all.isEmpty()) {
+            throw new NoAvailableEndpointException(name);
+        }
+        long now = nanoTime.getAsLong();
+        List<Endpoint> available = all.stream()
+                .filter(endpoint -> !endpoint.isEjected(now))
+                .collect(Collectors.toList());
+        if (available.isEmpty()) {
+            available = all;
+        }
+        List<Endpoint> untried = available.stream()
+                .filter(endpoint -> !tried.contains(endpoint))
+                .collect(Collectors.toList());
+        return strategy.choose(untried.isEmpty() ? available : untried);
+    }
+
+    public List<Endpoint> getEndpoints() {
+        refresh();
+        return endpoints;
+    }
+
+    public long getEjectedCount() {
+        long now = nanoTime.getAsLong();
+        return endpoints.stream().filter(endpoint -> endpoint.isEjected(now)).count();
+    }
+
+    // forgets everything learned about the instances
+    public synchronized void reset() {
+        urls = List.of();
+        endpoints = List.of();
+        refresh();
+    }
+
+    private void succeeded(Endpoint endpoint, long start) {
+        long now = nanoTime.getAsLong();
+        endpoint.recordLatency(now - start, now, config.getEwmaDecay());
+        endpoint.succeeded();
+    }
+
+    private void failed(Endpoint endpoint, long start, Throwable ex) {
+        if (!isFailure.test(ex)) {
+            succeeded(endpoint, start);
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        // an instance that fails fast mustn't look like the cheapest one
+        endpoint.recordLatency(Math.max(now - start, config.getFailurePenalty().toNanos()), now, config.getEwmaDecay());
+        var outlierDetection = config.getOutlierDetection();
+        if (!outlierDetection.isEnabled() || endpoint.failed() < outlierDetection.getConsecutiveFailures()) {
+            return;
+        }
+        synchronized (this) {
+            long maxEjected = endpoints.size() * outlierDetection.getMaxEjectionPercent() / 100;
+            if (endpoint.isEjected(now) || getEjectedCount() >= maxEjected) {
+                return;
+            }
+            endpoint.eject(now, outlierDetection.getBaseEjectionTime(), outlierDetection.getMaxEjectionTime());
+        }
+        log.warn("Ejected {} instance {} after {} consecutive failures : {}",
+                name, endpoint, outlierDetection.getConsecutiveFailures(), ex.getMessage());
+        onEjection.run();
+    }
+
+    // keeps what was learned about instances that are still there when the discovered URLs change
+    private void refresh() {
+        List<String> discovered = discovery.getUrls();
+        if (discovered.equals(urls)) {
+            return;
+        }
+        synchronized (this) {
+            Map<String, Endpoint> current = new LinkedHashMap<>();
+            endpoints.forEach(endpoint -> current.put(endpoint.getUrl(), endpoint));
+            List<Endpoint> updated = new ArrayList<>();
+            discovered.forEach(url -> updated.add(current.getOrDefault(url, new Endpoint(url))));
+            endpoints = List.copyOf(updated);
+            urls = discovered;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.reactivespring.loadbalancer;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.resilience.ResilienceRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Load balancer per downstream client. The instances come from the client's comma-separated URL property,
+ * or from {@code restClient.loadBalancer.discoveryFiles.<client>} when one is configured.
+ */
+@Component
+public class LoadBalancerRegistry {
+
+    @Autowired
+    private RestClientProperties restClientProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, LoadBalancer> loadBalancers = new ConcurrentHashMap<>();
+
+    public LoadBalancer register(String client, String urls) {
+        return loadBalancers.computeIfAbsent(client, name -> {
+            var config = restClientProperties.getLoadBalancer();
+            var ejections = Counter.builder("movies.client.loadbalancer.ejections")
+                    .tag("client", name)
+                    .register(meterRegistry);
+            var loadBalancer = new LoadBalancer(name, discovery(name, urls), config,
+                    ResilienceRegistry::isFailure, ejections::increment);
+            Gauge.builder("movies.client.loadbalancer.endpoints", loadBalancer, lb -> lb.getEndpoints().size())
+                    .tag("client", name)
+                    .tag("state", "all")
+                    .register(meterRegistry);
+            Gauge.builder("movies.client.loadbalancer.endpoints", loadBalancer, LoadBalancer::getEjectedCount)
+                    .tag("client", name)
+                    .tag("state", "ejected")
+                    .register(meterRegistry);
+            return loadBalancer;
+        });
+    }
+
+    public LoadBalancer loadBalancer(String client) {
+        return loadBalancers.get(client);
+    }
+
+    public void reset() {
+        loadBalancers.values().forEach(LoadBalancer::reset);
+    }
+
+    private EndpointDiscovery discovery(String client, String urls) {
+        var config = restClientProperties.getLoadBalancer();
+        String discoveryFile = config.getDiscoveryFiles().get(client);
+        if (discoveryFile != null) {
+            return new EndpointDiscovery.File(Path.of(discoveryFile), config.getRefreshInterval());
+        }
+        return new EndpointDiscovery.Static(parse(urls));
+    }
+
+    private static List<String> parse(String urls) {
+        return Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
@@ -0,0 +1,81 @@
+package com.reactivespring.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Picks the endpoint for the next call among the available ones, which is never an empty list.
+ */
+public interface LoadBalancingStrategy {
+
+    Endpoint choose(List<Endpoint> endpoints);
+
+    enum Type {
+        ROUND_ROBIN(RoundRobin::new),
+        LEAST_OUTSTANDING_REQUESTS(LeastOutstandingRequests::new),
+        // power of two choices, weighed by latency EWMA times calls in flight
+        P2C_EWMA(PowerOfTwoChoices::new);
+
+        private final Supplier<LoadBalancingStrategy> factory;
+
+        Type(Supplier<LoadBalancingStrategy> factory) {
+            this.factory = factory;
+        }
+
+        public LoadBalancingStrategy create() {
+            return factory.get();
+        }
+    }
+
+    class RoundRobin implements LoadBalancingStrategy {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        public Endpoint choose(List<Endpoint> endpoints) {
+            return endpoints.get(Math.floorMod(next.getAndIncrement(), endpoints.size()));
+        }
+    }
+
+    class LeastOutstandingRequests implements LoadBalancingStrategy {
+
+        @Override
+        public Endpoint choose(List<Endpoint> endpoints) {
+            // random start, so that ties don't all go to the first endpoint
+            int start = ThreadLocalRandom.current().nextInt(endpoints.size());
+            Endpoint least = null;
+            for (int i = 0; i < endpoints.size(); i++) {
+                Endpoint endpoint = endpoints.get((start + i) % endpoints.size());
+                if (least == null || endpoint.getOutstanding() < least.getOutstanding()) {
+                    least = endpoint;
+                }
+            }
+            return least;
+        }
+    }
+
+    class PowerOfTwoChoices implements LoadBalancingStrategy {
+
+        @Override
+        public Endpoint choose(List<Endpoint> endpoints) {
+            if (endpoints.size() == 1) {
+                return endpoints.get(0);
+            }
+            var random = ThreadLocalRandom.current();
+            int first = random.nextInt(endpoints.size());
+            int second = random.nextInt(endpoints.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Endpoint a = endpoints.get(first);
+            Endpoint b = endpoints.get(second);
+            return cost(a) <= cost(b) ? a : b;
+        }
+
+        private static double cost(Endpoint endpoint) {
+            return endpoint.getLatencyEwmaNanos() * (endpoint.getOutstanding() + 1);
+        }
+    }
+}
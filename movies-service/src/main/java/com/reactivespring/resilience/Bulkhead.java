@@ -0,0 +1,50 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.exception.BulkheadFullException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the calls in flight to one downstream. Calls over the limit fail immediately instead of queueing,
+ * so a slow downstream cannot tie up every connection and request of this service.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int maxConcurrentCalls) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!permits.tryAcquire()) {
+                return Mono.error(new BulkheadFullException(name));
+            }
+            return call.doFinally(signalType -> permits.release());
+        });
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!permits.tryAcquire()) {
+                return Flux.error(new BulkheadFullException(name));
+            }
+            return call.doFinally(signalType -> permits.release());
+        });
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
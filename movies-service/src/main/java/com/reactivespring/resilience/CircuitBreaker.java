@@ -0,0 +1,196 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.CallNotPermittedException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last slidingWindowSize calls reaches
+ * failureRateThreshold, fails calls fast while open, and after waitDurationInOpenState lets
+ * permittedCallsInHalfOpenState trial calls through: it closes if they all succeed and opens again on the first failure.
+ * Calls that are cancelled before they complete are not counted.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final RestClientProperties.CircuitBreaker config;
+    private final Predicate<Throwable> recordFailure;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+
+    // ring buffer of the most recent outcomes, true for a failure
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCalls;
+    private int windowFailures;
+
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, RestClientProperties.CircuitBreaker config, Predicate<Throwable> recordFailure) {
+        this(name, config, recordFailure, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, RestClientProperties.CircuitBreaker config, Predicate<Throwable> recordFailure, LongSupplier nanoTime) {
+        this.name = name;
+        this.config = config;
+        this.recordFailure = recordFailure;
+        this.nanoTime = nanoTime;
+        this.window = new boolean[config.getSlidingWindowSize()];
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Mono.error(new CallNotPermittedException("Circuit breaker " + name + " is open"));
+            }
+            var completed = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (completed.compareAndSet(false, true)) onSuccess();
+                    })
+                    .doOnError(ex -> {
+                        if (completed.compareAndSet(false, true)) onError(ex);
+                    })
+                    .doOnCancel(() -> {
+                        if (completed.compareAndSet(false, true)) onCancel();
+                    });
+        });
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Flux.error(new CallNotPermittedException("Circuit breaker " + name + " is open"));
+            }
+            var completed = new AtomicBoolean();
+            return call
+                    .doOnComplete(() -> {
+                        if (completed.compareAndSet(false, true)) onSuccess();
+                    })
+                    .doOnError(ex -> {
+                        if (completed.compareAndSet(false, true)) onError(ex);
+                    })
+                    .doOnCancel(() -> {
+                        if (completed.compareAndSet(false, true)) onCancel();
+                    });
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && openWaitIsOver()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized void reset() {
+        transitionTo(State.CLOSED);
+    }
+
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (!openWaitIsOver()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= config.getPermittedCallsInHalfOpenState()) {
+                return false;
+            }
+            halfOpenPermitted++;
+        }
+        return true;
+    }
+
+    private void onError(Throwable ex) {
+        if (recordFailure.test(ex)) {
+            onFailure();
+        } else {
+            // the downstream answered, e.g. with a 4xx, so it is healthy
+            onSuccess();
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenSucceeded++;
+            if (halfOpenSucceeded >= config.getPermittedCallsInHalfOpenState()) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (windowCalls >= config.getMinimumNumberOfCalls()
+                    && windowFailures * 100 >= config.getFailureRateThreshold() * windowCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenPermitted > 0) {
+            // give the trial slot back so the breaker cannot get stuck half-open
+            halfOpenPermitted--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCalls == window.length) {
+            if (window[windowPosition]) windowFailures--;
+        } else {
+            windowCalls++;
+        }
+        window[windowPosition] = failure;
+        if (failure) windowFailures++;
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private boolean openWaitIsOver() {
+        return nanoTime.getAsLong() - openedAt >= config.getWaitDurationInOpenState().toNanos();
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            log.warn("Circuit breaker {} changed from {} to {}", name, state, newState);
+        }
+        state = newState;
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAt = nanoTime.getAsLong();
+        }
+        if (newState == State.CLOSED) {
+            windowPosition = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Sends a second attempt when the first has not answered within the configured latency percentile of
+ * recent calls, answers with whichever attempt succeeds first and cancels the other.
+ * <p>
+ * Hedges are limited to a percentage of all calls, so a slow downstream does not get twice the traffic.
+ */
+public class Hedger {
+
+    // budget kept in thousandths of a hedge, each call earns budgetPercent * 10 of them
+    private static final long HEDGE_COST = 1000;
+
+    private final String name;
+    private final RestClientProperties.Hedging config;
+    private final LatencyTracker latencyTracker;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong budget = new AtomicLong();
+
+    public Hedger(String name, RestClientProperties.Hedging config, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.latencyTracker = new LatencyTracker(config.getWindowSize(), config.getPercentile());
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param attempt creates the call for the given attempt, 0 for the first and 1 for the hedge, so that
+     *                the hedge can go to another instance of the downstream
+     */
+    public <T> Mono<T> hedge(IntFunction<Mono<T>> attempt) {
+        return Mono.create(sink -> {
+            deposit();
+            var attempts = Disposables.composite();
+            // attempts that may still succeed, the hedge can't be sent anymore once this reaches zero
+            var running = new AtomicInteger(1);
+            sink.onDispose(attempts);
+
+            attempts.add(timed(attempt.apply(0))
+                    .contextWrite(sink.currentContext())
+                    .subscribe(sink::success, ex -> failed(ex, running, sink), sink::success));
+
+            attempts.add(Mono.delay(getDelay()).subscribe(tick -> {
+                if (!tryWithdraw()) {
+                    count("budget_exhausted");
+                    return;
+                }
+                if (running.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                    return;
+                }
+                count("sent");
+                attempts.add(timed(attempt.apply(1))
+                        .contextWrite(sink.currentContext())
+                        .subscribe(value -> {
+                                    count("won");
+                                    sink.success(value);
+                                },
+                                ex -> failed(ex, running, sink),
+                                sink::success));
+            }));
+        });
+    }
+
+    public Duration getDelay() {
+        if (latencyTracker.getSampleCount() < config.getMinSamples()) {
+            return config.getInitialDelay();
+        }
+        Duration percentile = latencyTracker.getPercentile();
+        return percentile.compareTo(config.getMinDelay()) < 0 ? config.getMinDelay() : percentile;
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnSuccess(value -> latencyTracker.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    // the call only fails once no attempt is left that could still succeed
+    private static void failed(Throwable ex, AtomicInteger running, MonoSink<?> sink) {
+        if (running.decrementAndGet() == 0) {
+            sink.error(ex);
+        }
+    }
+
+    private void deposit() {
+        long max = (long) config.getMaxBudget() * HEDGE_COST;
+        budget.updateAndGet(tokens -> Math.min(max, tokens + config.getBudgetPercent() * 10L));
+    }
+
+    private boolean tryWithdraw() {
+        while (true) {
+            long tokens = budget.get();
+            if (tokens < HEDGE_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(tokens, tokens - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    private void count(String outcome) {
+        Counter.builder("movies.client.hedges")
+                .tag("client", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
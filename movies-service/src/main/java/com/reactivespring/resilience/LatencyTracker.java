@@ -0,0 +1,52 @@
+package com.reactivespring.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent successful calls, used to pick the hedging delay.
+ * <p>
+ * The percentile is recomputed every tenth of a window rather than on every call, a window is sorted to find it.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final int recomputeEvery;
+    private final double percentile;
+
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private Duration cachedPercentile = Duration.ZERO;
+
+    public LatencyTracker(int windowSize, double percentile) {
+        this.samples = new long[windowSize];
+        this.recomputeEvery = Math.max(1, windowSize / 10);
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        if (++sinceRecompute >= recomputeEvery) {
+            sinceRecompute = 0;
+            cachedPercentile = compute();
+        }
+    }
+
+    public synchronized int getSampleCount() {
+        return size;
+    }
+
+    public synchronized Duration getPercentile() {
+        return cachedPercentile;
+    }
+
+    private Duration compute() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(index, size - 1))]);
+    }
+}
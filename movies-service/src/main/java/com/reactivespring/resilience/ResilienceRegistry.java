@@ -0,0 +1,122 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.BulkheadFullException;
+import com.reactivespring.exception.CallNotPermittedException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsServerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+/**
+ * Circuit breaker, bulkhead and hedger per downstream client, created on first use from {@link RestClientProperties}.
+ */
+@Component
+public class ResilienceRegistry {
+
+    @Autowired
+    private RestClientProperties restClientProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Hedger> hedgers = new ConcurrentHashMap<>();
+
+    public <T> Mono<T> protect(String client, Mono<T> call) {
+        Mono<T> protectedCall = call;
+        if (restClientProperties.getCircuitBreaker().isEnabled()) {
+            protectedCall = circuitBreaker(client).protect(protectedCall);
+        }
+        // outermost, so calls rejected by the bulkhead never count against the circuit breaker
+        if (restClientProperties.getBulkhead().isEnabled()) {
+            protectedCall = bulkhead(client).protect(protectedCall);
+        }
+        return protectedCall.doOnError(CallNotPermittedException.class, ex -> rejected(client, ex));
+    }
+
+    public <T> Flux<T> protect(String client, Flux<T> call) {
+        Flux<T> protectedCall = call;
+        if (restClientProperties.getCircuitBreaker().isEnabled()) {
+            protectedCall = circuitBreaker(client).protect(protectedCall);
+        }
+        if (restClientProperties.getBulkhead().isEnabled()) {
+            protectedCall = bulkhead(client).protect(protectedCall);
+        }
+        return protectedCall.doOnError(CallNotPermittedException.class, ex -> rejected(client, ex));
+    }
+
+    /**
+     * Hedges the call when hedging is enabled, otherwise only makes the first attempt.
+     */
+    public <T> Mono<T> hedge(String client, IntFunction<Mono<T>> attempt) {
+        if (!restClientProperties.getHedging().isEnabled()) {
+            return Mono.defer(() -> attempt.apply(0));
+        }
+        return hedger(client).hedge(attempt);
+    }
+
+    public Hedger hedger(String client) {
+        return hedgers.computeIfAbsent(client, name -> {
+            var hedger = new Hedger(name, restClientProperties.getHedging(), meterRegistry);
+            Gauge.builder("movies.client.hedge.delay", hedger, h -> h.getDelay().toMillis())
+                    .baseUnit("milliseconds")
+                    .tag("client", name)
+                    .register(meterRegistry);
+            return hedger;
+        });
+    }
+
+    public CircuitBreaker circuitBreaker(String client) {
+        return circuitBreakers.computeIfAbsent(client, name -> {
+            var circuitBreaker = new CircuitBreaker(name, restClientProperties.getCircuitBreaker(), ResilienceRegistry::isFailure);
+            Gauge.builder("movies.client.circuitbreaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("0 closed, 1 open, 2 half-open")
+                    .tag("client", name)
+                    .register(meterRegistry);
+            return circuitBreaker;
+        });
+    }
+
+    public Bulkhead bulkhead(String client) {
+        return bulkheads.computeIfAbsent(client, name -> {
+            var bulkhead = new Bulkhead(name, restClientProperties.getBulkhead().getMaxConcurrentCalls());
+            Gauge.builder("movies.client.bulkhead.available", bulkhead, Bulkhead::getAvailableConcurrentCalls)
+                    .tag("client", name)
+                    .register(meterRegistry);
+            return bulkhead;
+        });
+    }
+
+    public void reset() {
+        circuitBreakers.values().forEach(CircuitBreaker::reset);
+    }
+
+    private void rejected(String client, CallNotPermittedException ex) {
+        Counter.builder("movies.client.calls.rejected")
+                .tag("client", client)
+                .tag("reason", ex instanceof BulkheadFullException ? "bulkhead_full" : "circuit_open")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // 4xx answers mean the downstream is up, only errors that point at an unhealthy downstream count
+    public static boolean isFailure(Throwable ex) {
+        return ex instanceof MoviesInfoServerException
+                || ex instanceof ReviewsServerException
+                || ex instanceof WebClientRequestException
+                || ex instanceof TimeoutException;
+    }
+}
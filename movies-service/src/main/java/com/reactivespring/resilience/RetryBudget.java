@@ -0,0 +1,65 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket shared by all clients that caps retries at a percentage of the calls made.
+ * <p>
+ * Every call deposits {@code percent / 100} of a token and every retry withdraws a whole one. A small
+ * per-second allowance keeps retries possible while traffic is low.
+ */
+public class RetryBudget {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    // ten deposits of 0.1 add up to slightly less than 1
+    private static final double EPSILON = 1e-9;
+
+    private final double depositPerCall;
+    private final double minRetriesPerSecond;
+    private final double maxTokens;
+    private final LongSupplier nanoTime;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public RetryBudget(RestClientProperties.Retry.Budget config) {
+        this(config, System::nanoTime);
+    }
+
+    RetryBudget(RestClientProperties.Retry.Budget config, LongSupplier nanoTime) {
+        this.depositPerCall = config.getPercent() / 100d;
+        this.minRetriesPerSecond = config.getMinRetriesPerSecond();
+        this.maxTokens = config.getMaxTokens();
+        this.nanoTime = nanoTime;
+        this.tokens = Math.min(maxTokens, minRetriesPerSecond);
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    public synchronized void deposit() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + depositPerCall);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (tokens < 1 - EPSILON) {
+            return false;
+        }
+        tokens = Math.max(0, tokens - 1);
+        return true;
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        double elapsedSeconds = (now - lastRefillNanos) / NANOS_PER_SECOND;
+        lastRefillNanos = now;
+        tokens = Math.min(maxTokens, tokens + elapsedSeconds * minRetriesPerSecond);
+    }
+}
@@ -0,0 +1,62 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Times a client call as the caller sees it, hedges, retries and backoff included, where http.client.requests
+ * times every single HTTP exchange. Tags are limited to the client, the operation and the outcome.
+ */
+@Component
+public class ClientMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public ClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> timed(String client, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            var failure = new AtomicReference<Throwable>();
+            return call.doOnError(failure::set)
+                    .doFinally(signalType -> stop(sample, client, operation, signalType, failure.get()));
+        });
+    }
+
+    public <T> Flux<T> timed(String client, String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            var failure = new AtomicReference<Throwable>();
+            return call.doOnError(failure::set)
+                    .doFinally(signalType -> stop(sample, client, operation, signalType, failure.get()));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String client, String operation, SignalType signalType, Throwable failure) {
+        sample.stop(Timer.builder("movies.client.calls")
+                .tag("client", client)
+                .tag("operation", operation)
+                .tag("outcome", outcome(signalType))
+                .tag("exception", failure == null ? "none" : failure.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private static String outcome(SignalType signalType) {
+        switch (signalType) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+}
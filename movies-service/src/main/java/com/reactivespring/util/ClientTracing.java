@@ -0,0 +1,68 @@
+package com.reactivespring.util;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Wraps a client call in a span of its own, so that the HTTP exchanges it makes, hedges and retries included,
+ * show up as its children with the backoff in between. The trace is taken from and handed on through the
+ * Reactor {@link Context}; calls made outside a traced request are left alone.
+ */
+@Component
+public class ClientTracing {
+
+    private final Tracer tracer;
+
+    public ClientTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public <T> Mono<T> traced(String client, String operation, Mono<T> call) {
+        return Mono.deferContextual(context -> {
+            if (!context.hasKey(TraceContext.class)) {
+                return call;
+            }
+            Span span = start(context, client, operation);
+            return call.contextWrite(withSpan(span))
+                    .doOnError(span::error)
+                    .doFinally(signalType -> span.end());
+        });
+    }
+
+    public <T> Flux<T> traced(String client, String operation, Flux<T> call) {
+        return Flux.deferContextual(context -> {
+            if (!context.hasKey(TraceContext.class)) {
+                return call;
+            }
+            Span span = start(context, client, operation);
+            return call.contextWrite(withSpan(span))
+                    .doOnError(span::error)
+                    .doFinally(signalType -> span.end());
+        });
+    }
+
+    /**
+     * The span of the client call in progress, if it is traced.
+     */
+    public static Span currentSpan(ContextView context) {
+        return context.getOrDefault(Span.class, null);
+    }
+
+    private Span start(ContextView context, String client, String operation) {
+        return tracer.spanBuilder()
+                .setParent(context.get(TraceContext.class))
+                .name(operation)
+                .tag("client", client)
+                .start();
+    }
+
+    private static Context withSpan(Span span) {
+        return Context.of(TraceContext.class, span.context(), Span.class, span);
+    }
+}
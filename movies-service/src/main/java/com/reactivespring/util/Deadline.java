@@ -0,0 +1,63 @@
+package com.reactivespring.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Point in time by which the caller needs an answer, carried downstream in the Reactor {@link reactor.util.context.Context}.
+ */
+public final class Deadline {
+
+    public static final String CONTEXT_KEY = Deadline.class.getName();
+
+    // remaining time in milliseconds, sent by callers and forwarded to movie-info-service and movies-review-service
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Fails the call with a {@link java.util.concurrent.TimeoutException} once the deadline in its context passes.
+     */
+    public static <T> Mono<T> timeout(Mono<T> call) {
+        return Mono.deferContextual(context -> from(context)
+                .map(deadline -> call.timeout(deadline.remainingOrZero()))
+                .orElse(call));
+    }
+
+    public static <T> Flux<T> timeout(Flux<T> call) {
+        // the deadline covers the whole stream rather than the gap between two elements
+        return Flux.deferContextual(context -> from(context)
+                .map(deadline -> call.timeout(Mono.delay(deadline.remainingOrZero()),
+                        element -> Mono.delay(deadline.remainingOrZero())))
+                .orElse(call));
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return remaining().isNegative() || remaining().isZero();
+    }
+
+    private Duration remainingOrZero() {
+        Duration remaining = remaining();
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+}
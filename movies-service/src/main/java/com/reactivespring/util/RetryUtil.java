@@ -1,19 +1,106 @@
 package com.reactivespring.util;
 
+import com.reactivespring.config.RestClientProperties;
 import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsServerException;
-import reactor.core.Exceptions;
+import com.reactivespring.resilience.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Retries server errors with exponential backoff and full jitter, within the process-wide {@link RetryBudget}
+ * and the caller's {@link Deadline}.
+ */
+@Component
+@Slf4j
 public class RetryUtil {
 
-    public static Retry retrySpec(){
+    private final RestClientProperties.Retry config;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
 
-        return Retry.fixedDelay(3, Duration.ofSeconds(1))
-                .filter(ex -> ex instanceof MoviesInfoServerException ||
-                        ex instanceof ReviewsServerException)
-                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> Exceptions.propagate(retrySignal.failure()));
+    public RetryUtil(RestClientProperties restClientProperties, MeterRegistry meterRegistry) {
+        this.config = restClientProperties.getRetry();
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(config.getBudget());
+        Gauge.builder("movies.client.retry.budget.tokens", retryBudget, RetryBudget::getAvailableTokens)
+                .register(meterRegistry);
+    }
+
+    public Retry retrySpec(String client) {
+        return new Retry() {
+            @Override
+            public Publisher<?> generateCompanion(Flux<RetrySignal> retrySignals) {
+                // one companion per subscription, that is per call made, whether it ends up retried or not
+                retryBudget.deposit();
+                return retrySignals.concatMap(retrySignal -> Mono.deferContextual(context ->
+                        retry(client, retrySignal, Deadline.from(context).orElse(null), ClientTracing.currentSpan(context))));
+            }
+        };
+    }
+
+    private Mono<Long> retry(String client, Retry.RetrySignal retrySignal, Deadline deadline, Span span) {
+        Throwable failure = retrySignal.failure();
+        if (!isRetryable(failure)) {
+            return Mono.error(failure);
+        }
+        if (retrySignal.totalRetries() >= config.getMaxRetries()) {
+            count(client, "exhausted");
+            return Mono.error(failure);
+        }
+        Duration backoff = backoff(retrySignal.totalRetries());
+        if (deadline != null && deadline.remaining().compareTo(backoff) <= 0) {
+            count(client, "deadline");
+            return Mono.error(failure);
+        }
+        if (config.getBudget().isEnabled() && !retryBudget.tryWithdraw()) {
+            log.warn("Retry budget exhausted, not retrying {} call : {}", client, failure.getMessage());
+            count(client, "budget_exhausted");
+            return Mono.error(failure);
+        }
+        count(client, "retried");
+        Timer.builder("movies.client.retry.backoff")
+                .tag("client", client)
+                .register(meterRegistry)
+                .record(backoff);
+        if (span != null) {
+            span.event("retry after " + backoff.toMillis() + "ms");
+        }
+        return Mono.delay(backoff).thenReturn(retrySignal.totalRetries());
+    }
+
+    Duration backoff(long retry) {
+        long minBackoffMillis = config.getMinBackoff().toMillis();
+        long maxBackoffMillis = config.getMaxBackoff().toMillis();
+        long ceiling = Math.min(maxBackoffMillis, minBackoffMillis << Math.min(retry, 30));
+        if (ceiling <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private void count(String client, String outcome) {
+        Counter.builder("movies.client.retries")
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static boolean isRetryable(Throwable ex) {
+        return ex instanceof MoviesInfoServerException
+                || ex instanceof ReviewsServerException;
     }
 }
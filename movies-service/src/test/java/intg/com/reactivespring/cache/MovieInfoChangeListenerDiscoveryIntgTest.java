@@ -0,0 +1,151 @@
+package com.reactivespring.cache;
+
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Two movie-info-service instances, each one a WireMock server of its own, found through a discovery file.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(
+        properties = {
+                "restClient.movieInfoCache.enabled=true",
+                "restClient.movieInfoCache.reconnectMinBackoff=100ms",
+                "restClient.movieInfoCache.reconnectMaxBackoff=200ms",
+                "restClient.loadBalancer.refreshInterval=100ms"
+        }
+)
+// the change feed keeps reconnecting for as long as the context lives, so it must not outlive these tests
+@DirtiesContext
+public class MovieInfoChangeListenerDiscoveryIntgTest {
+
+        static final List<WireMockServer> movieInfoServers = start(2);
+        static final Path discoveryFile = createDiscoveryFile(movieInfoServers.subList(0, 1));
+
+        @DynamicPropertySource
+        static void endpoints(DynamicPropertyRegistry registry){
+                registry.add("restClient.loadBalancer.discoveryFiles.movieInfo", discoveryFile::toString);
+        }
+
+        @BeforeEach
+        void setUp(){
+                // a stream without events, which the listener keeps reconnecting to
+                movieInfoServers.forEach(server -> server.stubFor(get(urlEqualTo("/v1/movieInfos/events"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "text/event-stream")
+                                .withBody(":keep-alive\n\n")
+                        )));
+        }
+
+        @AfterAll
+        static void stopServers(){
+                movieInfoServers.forEach(WireMockServer::stop);
+        }
+
+        @Test
+        void changeFeedsFollowDiscoveredInstances(){
+                var first = movieInfoServers.get(0);
+                var second = movieInfoServers.get(1);
+                awaitEventsRequest(first);
+
+                writeDiscoveryFile(movieInfoServers);
+                awaitEventsRequest(second);
+
+                writeDiscoveryFile(List.of(second));
+                // the feed of the removed instance may still reconnect until the file has been re-read
+                sleep(Duration.ofMillis(500));
+                int eventsRequests = countEventsRequests(first);
+                sleep(Duration.ofMillis(500));
+
+                assertEquals(eventsRequests, countEventsRequests(first));
+                awaitEventsRequest(second);
+        }
+
+        private static void awaitEventsRequest(WireMockServer server){
+                server.resetRequests();
+                Instant deadline = Instant.now().plusSeconds(10);
+                while(Instant.now().isBefore(deadline)){
+                        if(countEventsRequests(server) > 0){
+                                return;
+                        }
+                        sleep(Duration.ofMillis(100));
+                }
+                fail("change feed of " + server.baseUrl() + " was never followed");
+        }
+
+        private static int countEventsRequests(WireMockServer server){
+                return server.countRequestsMatching(getRequestedFor(urlEqualTo("/v1/movieInfos/events")).build()).getCount();
+        }
+
+        private static Path createDiscoveryFile(List<WireMockServer> servers){
+                try {
+                        Path file = Files.createTempFile("movie-info-endpoints", ".txt");
+                        file.toFile().deleteOnExit();
+                        Files.write(file, urls(servers));
+                        return file;
+                } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                }
+        }
+
+        private static void writeDiscoveryFile(List<WireMockServer> servers){
+                try {
+                        FileTime lastModified = Files.getLastModifiedTime(discoveryFile);
+                        Files.write(discoveryFile, urls(servers));
+                        // file systems with a coarse modification time would otherwise hide quick rewrites
+                        Files.setLastModifiedTime(discoveryFile, FileTime.fromMillis(lastModified.toMillis() + 1000));
+                } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                }
+        }
+
+        private static List<String> urls(List<WireMockServer> servers){
+                return servers.stream()
+                        .map(server -> "http://localhost:" + server.port() + "/v1/movieInfos")
+                        .collect(Collectors.toList());
+        }
+
+        private static List<WireMockServer> start(int instances){
+                return IntStream.range(0, instances)
+                        .mapToObj(i -> {
+                                var server = new WireMockServer(options().dynamicPort().usingFilesUnderClasspath("."));
+                                server.start();
+                                return server;
+                        })
+                        .collect(Collectors.toList());
+        }
+
+        private static void sleep(Duration duration){
+                try {
+                        Thread.sleep(duration.toMillis());
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                }
+        }
+}
@@ -0,0 +1,166 @@
+package com.reactivespring.cache;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.reactivespring.domain.Movie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=true",
+                "restClient.movieInfoCache.reconnectMinBackoff=100ms",
+                "restClient.movieInfoCache.reconnectMaxBackoff=200ms"
+        }
+)
+// the change feed keeps reconnecting for as long as the context lives, so it must not outlive these tests
+@DirtiesContext
+public class MovieInfoChangeListenerIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+        }
+
+        @Test
+        void updateEventRefreshesCachedMovieInfo(){
+
+                String movieId = "1";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                assertEquals("Batman Begins", retrieveMovieName(movieId));
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/events"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "text/event-stream")
+                                .withBody("id:2c4f9a1e:7\n" +
+                                        "event:UPDATED\n" +
+                                        "data:{\"eventId\":7,\"type\":\"UPDATED\",\"movieInfoId\":\"1\"," +
+                                        "\"movieInfo\":{\"movieInfoId\":\"1\",\"name\":\"Batman Begins Updated\",\"year\":2005}}\n\n")
+                        ));
+
+                awaitMovieName(movieId, "Batman Begins Updated");
+
+                WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movieInfos/"+movieId)));
+                awaitRequest(getRequestedFor(urlEqualTo("/v1/movieInfos/events"))
+                        .withHeader("Last-Event-ID", equalTo("2c4f9a1e:7")));
+        }
+
+        @Test
+        void deleteEventEvictsCachedMovieInfo(){
+
+                String movieId = "2";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                retrieveMovieName(movieId);
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/events"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "text/event-stream")
+                                .withBody("id:2c4f9a1e:8\nevent:DELETED\ndata:{\"eventId\":8,\"type\":\"DELETED\",\"movieInfoId\":\"2\"}\n\n")
+                        ));
+                awaitRequest(getRequestedFor(urlEqualTo("/v1/movieInfos/events"))
+                        .withHeader("Last-Event-ID", equalTo("2c4f9a1e:8")));
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+movieId))
+                        .willReturn(aResponse()
+                                .withStatus(404)
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isNotFound();
+        }
+
+        private String retrieveMovieName(String movieId){
+                var movie = webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody(Movie.class)
+                        .returnResult()
+                        .getResponseBody();
+                return Objects.requireNonNull(movie).getMovieInfo().getName();
+        }
+
+        private void awaitMovieName(String movieId, String expectedName){
+                Instant deadline = Instant.now().plusSeconds(10);
+                while(Instant.now().isBefore(deadline)){
+                        if(expectedName.equals(retrieveMovieName(movieId))){
+                                return;
+                        }
+                        sleep();
+                }
+                fail("movie name never became " + expectedName);
+        }
+
+        private void awaitRequest(RequestPatternBuilder request){
+                Instant deadline = Instant.now().plusSeconds(10);
+                while(Instant.now().isBefore(deadline)){
+                        if(!WireMock.findAll(request).isEmpty()){
+                                return;
+                        }
+                        sleep();
+                }
+                fail("change feed was never resumed");
+        }
+
+        private static void sleep(){
+                try {
+                        Thread.sleep(Duration.ofMillis(100).toMillis());
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                }
+        }
+}
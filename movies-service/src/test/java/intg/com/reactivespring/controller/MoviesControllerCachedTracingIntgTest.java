@@ -0,0 +1,27 @@
+package com.reactivespring.controller;
+
+
+import com.reactivespring.client.MoviesInfoRestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The tracing tests again, with movie infos loaded through the cache as they are by default.
+ */
+@TestPropertySource(
+        properties = {
+                "restClient.movieInfoCache.enabled=true",
+                "restClient.movieInfoCache.invalidationEvents=false"
+        }
+)
+public class MoviesControllerCachedTracingIntgTest extends MoviesControllerTracingIntgTest {
+
+        @Autowired
+        MoviesInfoRestClient moviesInfoRestClient;
+
+        @AfterEach
+        void evictMovieInfos(){
+                moviesInfoRestClient.getMovieInfoCache().evictAll();
+        }
+}
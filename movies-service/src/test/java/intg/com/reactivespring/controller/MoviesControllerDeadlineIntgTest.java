@@ -0,0 +1,150 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.resilience.ResilienceRegistry;
+import com.reactivespring.util.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false",
+                "restClient.deadline.defaultTimeout=5s",
+                "restClient.deadline.maxTimeout=8s"
+        }
+)
+public class MoviesControllerDeadlineIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static String MOVIE_ID = "abc";
+        final static String OTHER_MOVIE_ID = "def";
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
+        @Test
+        void slowReviewsExceedTheDeadline(){
+
+                stubMovieInfo();
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                                .withFixedDelay(3000)
+                        ));
+
+                long start = System.nanoTime();
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .header(Deadline.HEADER, "500")
+                        .exchange()
+                        .expectStatus()
+                        .isEqualTo(504)
+                        .expectBody(String.class)
+                        .isEqualTo("Request deadline exceeded");
+
+                assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3000);
+        }
+
+        @Test
+        void remainingTimeIsForwardedDownstream(){
+
+                stubMovieInfo();
+                stubReviews();
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .header(Deadline.HEADER, "2000")
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+
+                WireMock.verify(getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .withHeader(Deadline.HEADER, matching("(1\\d{3}|2000|\\d{1,3})")));
+                WireMock.verify(getRequestedFor(urlPathEqualTo("/v1/reviews"))
+                        .withHeader(Deadline.HEADER, matching("(1\\d{3}|2000|\\d{1,3})")));
+        }
+
+        @Test
+        void defaultAndMaxTimeoutFromConfig(){
+
+                stubMovieInfo();
+                stubReviews();
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+                WireMock.verify(getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .withHeader(Deadline.HEADER, matching("(4\\d{3}|5000)")));
+
+                // another movie, which can't have been cached by the first request
+                WireMock.reset();
+                stubMovieInfo(OTHER_MOVIE_ID);
+                stubReviews();
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", OTHER_MOVIE_ID)
+                        .header(Deadline.HEADER, "60000")
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+                WireMock.verify(getRequestedFor(urlEqualTo("/v1/movieInfos/"+OTHER_MOVIE_ID))
+                        .withHeader(Deadline.HEADER, matching("(7\\d{3}|8000)")));
+        }
+
+        @Test
+        void invalidTimeoutHeader(){
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .header(Deadline.HEADER, "soon")
+                        .exchange()
+                        .expectStatus()
+                        .isBadRequest();
+        }
+
+        private void stubMovieInfo(){
+                stubMovieInfo(MOVIE_ID);
+        }
+
+        private void stubMovieInfo(String movieId){
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+        }
+
+        private void stubReviews(){
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+        }
+}
@@ -0,0 +1,248 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.config.MovieFetchStrategy;
+import com.reactivespring.domain.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false",
+                // WireMock gzips a whole response at once, which would hide how the movie infos arrive
+                "restClient.compress=false"
+        }
+)
+@Slf4j
+public class MoviesControllerFetchStrategyIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static int MOVIE_INFO_DELAY_MS = 400;
+        final static int REVIEWS_DELAY_MS = 400;
+        final static int ITERATIONS = 5;
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        MoviesController moviesController;
+
+        @BeforeEach
+        void setUp(){
+                webTestClient = webTestClient.mutate()
+                        .responseTimeout(Duration.ofSeconds(10))
+                        .build();
+        }
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                ReflectionTestUtils.setField(moviesController, "fetchStrategy", MovieFetchStrategy.SEQUENTIAL);
+        }
+
+        @Test
+        void parallelFetchIsFasterThanSequential(){
+
+                stubFor(get(urlPathMatching("/v1/movieInfos/.*"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                                .withFixedDelay(MOVIE_INFO_DELAY_MS)
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                                .withFixedDelay(REVIEWS_DELAY_MS)
+                        ));
+
+                long sequentialMs = averageLatencyMs(MovieFetchStrategy.SEQUENTIAL);
+                long parallelMs = averageLatencyMs(MovieFetchStrategy.PARALLEL);
+
+                log.info("retrieveMovieById average latency over {} calls : sequential={}ms parallel={}ms",
+                        ITERATIONS, sequentialMs, parallelMs);
+
+                assertTrue(sequentialMs >= MOVIE_INFO_DELAY_MS + REVIEWS_DELAY_MS);
+                assertTrue(parallelMs < MOVIE_INFO_DELAY_MS + REVIEWS_DELAY_MS);
+        }
+
+        @Test
+        void bulkFetchesRunConcurrently(){
+
+                stubFor(post(urlEqualTo("/v1/movieInfos/bulk"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfos.json")
+                                .withFixedDelay(MOVIE_INFO_DELAY_MS)
+                        ));
+
+                stubFor(post(urlEqualTo("/v1/reviews/byMovie"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews-by-movie.json")
+                                .withFixedDelay(REVIEWS_DELAY_MS)
+                        ));
+
+                // warm up connections and codecs before measuring
+                retrieveMovies();
+
+                long start = System.nanoTime();
+                retrieveMovies();
+                long latencyMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+                log.info("retrieveMoviesByIds latency : {}ms", latencyMs);
+                assertTrue(latencyMs < MOVIE_INFO_DELAY_MS + REVIEWS_DELAY_MS);
+        }
+
+        @Test
+        void streamEmitsMoviesAsMovieInfosArrive(){
+
+                stubFor(post(urlEqualTo("/v1/movieInfos/bulk"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfos.json")
+                                // the second movie info is only complete about half way through
+                                .withChunkedDribbleDelay(10, 2 * MOVIE_INFO_DELAY_MS)
+                        ));
+
+                stubFor(post(urlEqualTo("/v1/reviews/byMovie"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews-by-movie.json")
+                        ));
+
+                var movies = webTestClient.get().uri(MOVIES_URL+"/stream?ids=1,2")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .returnResult(Movie.class)
+                        .getResponseBody();
+
+                StepVerifier.create(movies.elapsed())
+                        .assertNext(first -> assertEquals("Batman Begins", first.getT2().getMovieInfo().getName()))
+                        .assertNext(second -> {
+                                log.info("second streamed movie followed the first after {}ms", second.getT1());
+                                assertTrue(second.getT1() >= MOVIE_INFO_DELAY_MS / 2);
+                        })
+                        .expectComplete()
+                        .verify(Duration.ofSeconds(5));
+        }
+
+        @Test
+        void parallelFetch_404_movieInfo(){
+
+                ReflectionTestUtils.setField(moviesController, "fetchStrategy", MovieFetchStrategy.PARALLEL);
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withStatus(404)
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                                .withFixedDelay(REVIEWS_DELAY_MS)
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isNotFound()
+                        .expectBody(String.class)
+                        .isEqualTo("There is no MovieInfo Available for the passed Id: "+movieId);
+        }
+
+        @Test
+        void parallelFetch_404_movieInfo_afterReviewsError(){
+
+                ReflectionTestUtils.setField(moviesController, "fetchStrategy", MovieFetchStrategy.PARALLEL);
+                String movieId = "abc";
+
+                // the reviews error arrives first and isn't retried
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withStatus(404)
+                                .withFixedDelay(MOVIE_INFO_DELAY_MS)
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withStatus(400)
+                                .withBody("movieInfoId must be a number")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isNotFound()
+                        .expectBody(String.class)
+                        .isEqualTo("There is no MovieInfo Available for the passed Id: "+movieId);
+        }
+
+        private long averageLatencyMs(MovieFetchStrategy fetchStrategy){
+                ReflectionTestUtils.setField(moviesController, "fetchStrategy", fetchStrategy);
+
+                // warm up connections and codecs before measuring
+                retrieveMovie("warmup");
+
+                long totalMs = 0;
+                for(int i = 0; i < ITERATIONS; i++){
+                        long start = System.nanoTime();
+                        retrieveMovie("movie" + i);
+                        totalMs += Duration.ofNanos(System.nanoTime() - start).toMillis();
+                }
+                return totalMs / ITERATIONS;
+        }
+
+        private void retrieveMovies(){
+                webTestClient.get().uri(MOVIES_URL+"?ids=1,2,3")
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBodyList(Movie.class)
+                        .hasSize(2);
+        }
+
+        private void retrieveMovie(String movieId){
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody(Movie.class)
+                        .consumeWith(movieEntityExchangeResult -> {
+                                var movie = movieEntityExchangeResult.getResponseBody();
+                                assertEquals(2, Objects.requireNonNull(movie).getReviewList().size());
+                        });
+        }
+
+}
@@ -0,0 +1,99 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false",
+                "restClient.hedging.enabled=true",
+                "restClient.hedging.initialDelay=100ms",
+                "restClient.hedging.budgetPercent=100"
+        }
+)
+public class MoviesControllerHedgingIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static String MOVIE_ID = "abc";
+        final static int SLOW_RESPONSE_MS = 2000;
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
+        @Test
+        void slowMovieInfoIsHedged(){
+
+                // the first request is slow, the hedge sent after it is answered right away
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .inScenario("slow movie info")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willSetStateTo("hedged")
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                                .withFixedDelay(SLOW_RESPONSE_MS)
+                        ));
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .inScenario("slow movie info")
+                        .whenScenarioStateIs("hedged")
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                long start = System.nanoTime();
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody(Movie.class)
+                        .consumeWith(movieEntityExchangeResult -> {
+                                var movie = movieEntityExchangeResult.getResponseBody();
+                                assertEquals("Batman Begins", Objects.requireNonNull(movie).getMovieInfo().getName());
+                                assertEquals(2, movie.getReviewList().size());
+                        });
+
+                assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < SLOW_RESPONSE_MS);
+                WireMock.verify(2, getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID)));
+        }
+}
@@ -3,16 +3,20 @@ package com.reactivespring.controller;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.List;
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
@@ -24,12 +28,24 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 @TestPropertySource(
         properties = {
                 "restClient.moviesInfoUrl=http://localhost:5656/v1/movieInfos",
-                "restClient.reviewsUrl=http://localhost:5656/v1/reviews"
+                "restClient.reviewsUrl=http://localhost:5656/v1/reviews",
+                "restClient.movieInfoCache.enabled=false"
         }
 )
 public class MoviesControllerIntgTest {
 
         final static String MOVIES_URL = "/v1/movies";
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @AfterEach
+        void tearDown(){
+                // the 5XX tests must not leave a circuit open or requests in the journal for the tests that follow
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
         @Autowired
         WebTestClient webTestClient;
 
@@ -65,6 +81,129 @@ public class MoviesControllerIntgTest {
 
         }
 
+        @Test
+        void retrieveMovieSummaryById(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/stats"))
+                        .withQueryParam("movieInfoId", equalTo(movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviewstats.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?view=summary", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody()
+                        .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                        .jsonPath("$.reviewStats.count").isEqualTo(3)
+                        .jsonPath("$.reviewStats.averageRating").isEqualTo(8.5)
+                        .jsonPath("$.reviewList").doesNotExist();
+        }
+
+        @Test
+        void retrieveMovieWithTopReviewsById(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .withQueryParam("movieInfoId", equalTo(movieId))
+                        .withQueryParam("sort", equalTo("rating"))
+                        .withQueryParam("limit", equalTo("2"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withHeader("X-Total-Count", "250")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsLimit=2&reviewsSort=rating", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody(Movie.class)
+                        .consumeWith(movieEntityExchangeResult -> {
+                                var movie = movieEntityExchangeResult.getResponseBody();
+                                assertEquals(2, Objects.requireNonNull(movie).getReviewList().size());
+                                assertEquals(250L, movie.getReviewsTotal());
+                        });
+        }
+
+        @Test
+        void retrieveMovieWithTopReviewsById_invalidParameters(){
+
+                String movieId = "abc";
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsLimit=2&reviewsSort=oldest", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isBadRequest()
+                        .expectBody(String.class)
+                        .isEqualTo("reviewsSort must be one of recent,rating");
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsLimit=0", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isBadRequest()
+                        .expectBody(String.class)
+                        .isEqualTo("reviewsLimit must be between 1 and 1000");
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsSort=bogus", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isBadRequest()
+                        .expectBody(String.class)
+                        .isEqualTo("reviewsSort must be one of recent,rating");
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsSort=rating", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isBadRequest()
+                        .expectBody(String.class)
+                        .isEqualTo("reviewsSort requires reviewsLimit");
+
+                WireMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void retrieveMovieWithTopReviewsById_4XX_reviews(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withStatus(422)
+                                .withBody("limit must be a number")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?reviewsLimit=2", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isEqualTo(422)
+                        .expectBody(String.class)
+                        .isEqualTo("limit must be a number");
+        }
+
         @Test
         void retrieveMovieById_404_movieInfo(){
 
@@ -132,7 +271,7 @@ public class MoviesControllerIntgTest {
                 stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
                         .willReturn(aResponse()
                                 .withStatus(500)
-                                .withBody("Server Exception in MoviesInfoService MovieInfo Service Unavailable")
+                                .withBody("MovieInfo Service Unavailable")
                         ));
 
                 stubFor(get(urlPathEqualTo("/v1/reviews"))
@@ -165,10 +304,10 @@ public class MoviesControllerIntgTest {
                                 .withBodyFile("movieinfo.json")
                         ));
 
-                stubFor(get(urlEqualTo("/v1/reviews"))
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
                         .willReturn(aResponse()
                                 .withStatus(500)
-                                .withBody("Review Service Not Available")
+                                .withBody("Review Service Unavailable")
                         ));
 
 
@@ -181,8 +320,100 @@ public class MoviesControllerIntgTest {
                         .isEqualTo("Server Exception in ReviewsService Review Service Unavailable")
                 ;
 
-                WireMock.verify(4,getRequestedFor(urlEqualTo("/v1/reviews*")));
+                WireMock.verify(4,getRequestedFor(urlPathEqualTo("/v1/reviews")));
+
+        }
+
+        @Test
+        void retrieveMoviesByIds(){
+
+                stubFor(post(urlEqualTo("/v1/movieInfos/bulk"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfos.json")
+                        ));
+
+                stubFor(post(urlEqualTo("/v1/reviews/byMovie"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews-by-movie.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"?ids=1,2,3")
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBodyList(Movie.class)
+                        .consumeWith(listEntityExchangeResult -> {
+                                List<Movie> movies = listEntityExchangeResult.getResponseBody();
+                                assertEquals(2, Objects.requireNonNull(movies).size());
+                                assertEquals("Batman Begins", movies.get(0).getMovieInfo().getName());
+                                assertEquals(2, movies.get(0).getReviewList().size());
+                                assertEquals(1, movies.get(1).getReviewList().size());
+                        });
+
+                WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/movieInfos/bulk"))
+                        .withRequestBody(equalToJson("[\"1\",\"2\",\"3\"]")));
+                WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/reviews/byMovie"))
+                        .withRequestBody(equalToJson("[\"1\",\"2\",\"3\"]")));
+        }
+
+        @Test
+        void streamMoviesByIds(){
+
+                stubFor(post(urlEqualTo("/v1/movieInfos/bulk"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfos.json")
+                        ));
+
+                stubFor(post(urlEqualTo("/v1/reviews/byMovie"))
+                        .willReturn(aResponse()
+                                .withStatus(404)
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/stream?ids=1,2")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBodyList(Movie.class)
+                        .consumeWith(listEntityExchangeResult -> {
+                                List<Movie> movies = listEntityExchangeResult.getResponseBody();
+                                assertEquals(2, Objects.requireNonNull(movies).size());
+                                assertEquals(0, movies.get(1).getReviewList().size());
+                        });
+        }
+
+        @Test
+        void connectionPoolMetrics(){
 
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+
+                List.of("active", "idle", "pending").forEach(gauge ->
+                        webTestClient.get().uri("/actuator/metrics/reactor.netty.connection.provider."+gauge+".connections")
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBody()
+                                .jsonPath("$.availableTags[?(@.tag == 'name')].values[0]").isEqualTo("movies-service"));
         }
 
 }
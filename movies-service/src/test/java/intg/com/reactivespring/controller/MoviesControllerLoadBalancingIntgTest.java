@@ -0,0 +1,158 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.loadbalancer.LoadBalancerRegistry;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Three movie-info-service and two movies-review-service instances, each one a WireMock server of its own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@TestPropertySource(
+        properties = {
+                "restClient.movieInfoCache.enabled=false",
+                "restClient.loadBalancer.strategy=ROUND_ROBIN",
+                "restClient.loadBalancer.outlierDetection.consecutiveFailures=2",
+                "restClient.loadBalancer.outlierDetection.baseEjectionTime=1m"
+        }
+)
+public class MoviesControllerLoadBalancingIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static String MOVIE_ID = "abc";
+
+        static final List<WireMockServer> movieInfoServers = start(3);
+        static final List<WireMockServer> reviewsServers = start(2);
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @Autowired
+        LoadBalancerRegistry loadBalancerRegistry;
+
+        @DynamicPropertySource
+        static void endpoints(DynamicPropertyRegistry registry){
+                registry.add("restClient.moviesInfoUrl", () -> urls(movieInfoServers, "/v1/movieInfos"));
+                registry.add("restClient.reviewsUrl", () -> urls(reviewsServers, "/v1/reviews"));
+        }
+
+        @BeforeEach
+        void setUp(){
+                movieInfoServers.forEach(server -> server.stubFor(get(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        )));
+                reviewsServers.forEach(server -> server.stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        )));
+        }
+
+        @AfterEach
+        void tearDown(){
+                movieInfoServers.forEach(WireMockServer::resetAll);
+                reviewsServers.forEach(WireMockServer::resetAll);
+                resilienceRegistry.reset();
+                loadBalancerRegistry.reset();
+        }
+
+        @AfterAll
+        static void stopServers(){
+                movieInfoServers.forEach(WireMockServer::stop);
+                reviewsServers.forEach(WireMockServer::stop);
+        }
+
+        @Test
+        void callsAreSpreadOverAllInstances(){
+
+                for(int i = 0; i < 6; i++){
+                        retrieveMovie();
+                }
+
+                movieInfoServers.forEach(server ->
+                        assertEquals(2, server.countRequestsMatching(getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID)).build()).getCount()));
+                reviewsServers.forEach(server ->
+                        assertEquals(3, server.countRequestsMatching(getRequestedFor(urlPathEqualTo("/v1/reviews")).build()).getCount()));
+        }
+
+        @Test
+        void failingInstanceIsEjected(){
+
+                var failing = movieInfoServers.get(0);
+                failing.stubFor(get(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("MovieInfo Service Unavailable")
+                        ));
+
+                // calls that hit the failing instance are retried on another one
+                for(int i = 0; i < 12; i++){
+                        retrieveMovie();
+                }
+
+                var failingCalls = failing.countRequestsMatching(getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID)).build()).getCount();
+                assertEquals(2, failingCalls);
+                assertEquals(12, movieInfoServers.subList(1, 3).stream()
+                        .mapToInt(server -> server.countRequestsMatching(getRequestedFor(urlEqualTo("/v1/movieInfos/"+MOVIE_ID)).build()).getCount())
+                        .sum());
+
+                webTestClient.get().uri("/actuator/metrics/movies.client.loadbalancer.ejections?tag=client:movieInfo")
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody()
+                        .jsonPath("$.measurements[0].value").isEqualTo(1.0);
+        }
+
+        private void retrieveMovie(){
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+        }
+
+        private static List<WireMockServer> start(int instances){
+                return IntStream.range(0, instances)
+                        .mapToObj(i -> {
+                                var server = new WireMockServer(options().dynamicPort().usingFilesUnderClasspath("."));
+                                server.start();
+                                return server;
+                        })
+                        .collect(Collectors.toList());
+        }
+
+        private static String urls(List<WireMockServer> servers, String path){
+                return servers.stream()
+                        .map(server -> "http://localhost:" + server.port() + path)
+                        .collect(Collectors.joining(","));
+        }
+}
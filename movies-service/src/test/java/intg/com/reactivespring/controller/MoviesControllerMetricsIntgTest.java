@@ -0,0 +1,101 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@AutoConfigureMetrics
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false"
+        }
+)
+public class MoviesControllerMetricsIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static String MOVIE_ID = "movie-4711";
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
+        @Test
+        void prometheusEndpoint(){
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+MOVIE_ID))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                // the first reviews call fails, so that the retry path shows up as well
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .inScenario("reviews")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willSetStateTo("recovered")
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("Review Service Unavailable")
+                        ));
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .inScenario("reviews")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", MOVIE_ID)
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+
+                String metrics = webTestClient.get().uri("/actuator/prometheus")
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody(String.class)
+                        .returnResult()
+                        .getResponseBody();
+
+                assertTrue(metrics.contains("http_server_requests_seconds_bucket{application=\"movies-service\""));
+                assertTrue(metrics.contains("uri=\"/v1/movies/{id}\""));
+                assertTrue(metrics.contains("uri=\"/v1/movieInfos/{id}\""));
+                assertTrue(metrics.contains("uri=\"/v1/reviews?movieInfoId={movieInfoId}\""));
+                assertTrue(metrics.contains("movies_client_calls_seconds_bucket{"));
+                assertTrue(metrics.contains("operation=\"retrieveMovieInfo\",outcome=\"success\""));
+                assertTrue(metrics.contains("movies_client_retry_backoff_seconds_count{application=\"movies-service\",client=\"reviews\",}"));
+                assertTrue(metrics.contains("movies_client_retries_total{application=\"movies-service\",client=\"reviews\",outcome=\"retried\",}"));
+                // ids stay out of the tags
+                assertFalse(metrics.contains(MOVIE_ID));
+        }
+}
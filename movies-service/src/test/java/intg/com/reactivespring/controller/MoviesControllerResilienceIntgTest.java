@@ -0,0 +1,153 @@
+package com.reactivespring.controller;
+
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.resilience.CircuitBreaker;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false",
+                "restClient.circuitBreaker.slidingWindowSize=2",
+                "restClient.circuitBreaker.minimumNumberOfCalls=2",
+                "restClient.circuitBreaker.waitDurationInOpenState=1m"
+        }
+)
+public class MoviesControllerResilienceIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
+        @Test
+        void openReviewsCircuitDegradesToMovieWithoutReviews(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("Review Service Unavailable")
+                        ));
+
+                // the call and its first retry fail and open the circuit, the remaining retries are rejected
+                // and the movie comes back without reviews
+                for(int i = 0; i < 2; i++){
+                        webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                                .exchange()
+                                .expectStatus()
+                                .isOk()
+                                .expectBody(Movie.class)
+                                .consumeWith(movieEntityExchangeResult -> {
+                                        var movie = movieEntityExchangeResult.getResponseBody();
+                                        assertEquals("Batman Begins", Objects.requireNonNull(movie).getMovieInfo().getName());
+                                        assertTrue(movie.getReviewList().isEmpty());
+                                });
+                }
+                assertEquals(CircuitBreaker.State.OPEN, resilienceRegistry.circuitBreaker("reviews").getState());
+
+                // the open circuit kept the second request away from movies-review-service
+                WireMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void openReviewsCircuitDegradesToSummaryWithoutStats(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/stats"))
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("Review Service Unavailable")
+                        ));
+
+                // as above, the call and its first retry open the circuit and the remaining retries are rejected
+                webTestClient.get().uri(MOVIES_URL+"/{id}?view=summary", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody()
+                        .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                        .jsonPath("$.reviewStats").doesNotExist();
+                assertEquals(CircuitBreaker.State.OPEN, resilienceRegistry.circuitBreaker("reviews").getState());
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}?view=summary", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isOk()
+                        .expectBody()
+                        .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                        .jsonPath("$.reviewStats").doesNotExist();
+
+                WireMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/reviews/stats")));
+        }
+
+        @Test
+        void openMovieInfoCircuitAnswers503(){
+
+                String movieId = "abc";
+
+                stubFor(get(urlEqualTo("/v1/movieInfos"+"/"+movieId))
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("MovieInfo Service Unavailable")
+                        ));
+
+                // the first request fails twice (call and first retry) and opens the circuit, its remaining retries are rejected
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .is5xxServerError();
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isEqualTo(503);
+
+                WireMock.verify(2, getRequestedFor(urlEqualTo("/v1/movieInfos"+"/"+movieId)));
+        }
+}
@@ -0,0 +1,156 @@
+package com.reactivespring.controller;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.reactivespring.resilience.ResilienceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(
+        properties = {
+                "restClient.moviesInfoUrl=http://localhost:${wiremock.server.port}/v1/movieInfos",
+                "restClient.reviewsUrl=http://localhost:${wiremock.server.port}/v1/reviews",
+                "restClient.movieInfoCache.enabled=false",
+                // the WireMock server stands in for the collector as well
+                "spring.zipkin.base-url=http://localhost:${wiremock.server.port}/",
+                "spring.sleuth.sampler.probability=1.0"
+        }
+)
+public class MoviesControllerTracingIntgTest {
+
+        final static String MOVIES_URL = "/v1/movies";
+        final static String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+        final static String TRACEPARENT = "00-" + TRACE_ID + "-b7ad6b7169203331-01";
+
+        @Autowired
+        WebTestClient webTestClient;
+
+        @Autowired
+        ResilienceRegistry resilienceRegistry;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        @AfterEach
+        void tearDown(){
+                WireMock.reset();
+                resilienceRegistry.reset();
+        }
+
+        @Test
+        void retrieveMovieById_propagatesAndExportsTrace() throws InterruptedException, JsonProcessingException {
+
+                String movieId = "abc";
+
+                stubFor(post(urlEqualTo("/api/v2/spans"))
+                        .willReturn(aResponse().withStatus(202)));
+
+                stubFor(get(urlEqualTo("/v1/movieInfos/"+movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                        ));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .inScenario("reviews")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willSetStateTo("recovered")
+                        .willReturn(aResponse()
+                                .withStatus(500)
+                                .withBody("Review Service Unavailable")
+                        ));
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .inScenario("reviews")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                        ));
+
+                webTestClient.get().uri(MOVIES_URL+"/{id}", movieId)
+                        .header("traceparent", TRACEPARENT)
+                        .exchange()
+                        .expectStatus()
+                        .isOk();
+
+                // every backend call, the retried one included, joins the caller's trace with a span of its own
+                List<String> traceparents = findAll(getRequestedFor(urlMatching("/v1/(movieInfos|reviews).*"))).stream()
+                        .map(request -> request.getHeader("traceparent"))
+                        .collect(Collectors.toList());
+                assertEquals(3, traceparents.size());
+                traceparents.forEach(traceparent -> assertTrue(traceparent.matches("00-" + TRACE_ID + "-[0-9a-f]{16}-01"), traceparent));
+                assertEquals(3, traceparents.stream().distinct().count());
+
+                String spans = awaitSpans();
+                assertTrue(spans.contains("\"traceId\":\"" + TRACE_ID + "\""));
+                assertTrue(spans.contains("\"serviceName\":\"movies-service\""));
+                assertTrue(spans.contains("\"name\":\"retrievemovieinfo\""));
+                assertTrue(spans.contains("\"name\":\"retrievereviews\""));
+                assertTrue(spans.contains("\"value\":\"retry after "));
+
+                // caller -> request -> retrieveMovieInfo -> the HTTP call to movie-info-service
+                List<Map<String, Object>> exportedSpans = exportedSpans();
+                Map<String, Object> serverSpan = span(exportedSpans, "name", "get /v1/movies/{id}");
+                Map<String, Object> retrieveMovieInfoSpan = span(exportedSpans, "name", "retrievemovieinfo");
+                String movieInfoRequestSpanId = findAll(getRequestedFor(urlEqualTo("/v1/movieInfos/"+movieId))).get(0)
+                        .getHeader("traceparent").split("-")[2];
+                Map<String, Object> movieInfoRequestSpan = span(exportedSpans, "id", movieInfoRequestSpanId);
+                assertEquals(TRACEPARENT.split("-")[2], serverSpan.get("parentId"));
+                assertEquals(serverSpan.get("id"), retrieveMovieInfoSpan.get("parentId"));
+                assertEquals(retrieveMovieInfoSpan.get("id"), movieInfoRequestSpan.get("parentId"));
+        }
+
+        private List<Map<String, Object>> exportedSpans() throws JsonProcessingException {
+                List<Map<String, Object>> spans = new ArrayList<>();
+                for (LoggedRequest request : findAll(postRequestedFor(urlEqualTo("/api/v2/spans")))) {
+                        spans.addAll(objectMapper.readValue(request.getBodyAsString(), new TypeReference<List<Map<String, Object>>>() {}));
+                }
+                return spans;
+        }
+
+        private static Map<String, Object> span(List<Map<String, Object>> spans, String key, String value){
+                return spans.stream()
+                        .filter(span -> value.equals(span.get(key)))
+                        .findFirst()
+                        .orElseThrow(() -> new AssertionError("No span with " + key + " " + value + " in " + spans));
+        }
+
+        private String awaitSpans() throws InterruptedException {
+                for (int i = 0; i < 50; i++) {
+                        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/v2/spans")));
+                        String spans = requests.stream()
+                                .map(LoggedRequest::getBodyAsString)
+                                .collect(Collectors.joining());
+                        // the server span ends last
+                        if (spans.contains("\"name\":\"retrievereviews\"") && spans.contains("\"name\":\"get /v1/movies/{id}\"")) {
+                                return spans;
+                        }
+                        Thread.sleep(100);
+                }
+                throw new AssertionError("No spans reported to the collector");
+        }
+}
@@ -0,0 +1,119 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+    RestClientProperties.MovieInfoCache config;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        config = new RestClientProperties.MovieInfoCache();
+        config.setEnabled(true);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad(){
+        var movieInfoCache = new MovieInfoCache(config, movieId -> {
+            loads.incrementAndGet();
+            return Mono.just(movieInfo(movieId)).delayElement(Duration.ofMillis(200));
+        }, meterRegistry);
+
+        var movieInfos = Flux.range(0, 10)
+                .flatMap(i -> movieInfoCache.get("abc"));
+
+        StepVerifier.create(movieInfos)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void hitsAreServedFromCache(){
+        var movieInfoCache = new MovieInfoCache(config, movieId -> {
+            loads.incrementAndGet();
+            return Mono.just(movieInfo(movieId));
+        }, meterRegistry);
+
+        movieInfoCache.get("abc").block();
+        StepVerifier.create(movieInfoCache.get("abc"))
+                .assertNext(movieInfo -> assertEquals("abc", movieInfo.getMovieInfoId()))
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movieInfo").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movieInfo").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void notFoundIsCachedNegatively(){
+        var movieInfoCache = new MovieInfoCache(config, movieId -> {
+            loads.incrementAndGet();
+            return Mono.error(new MoviesInfoClientException("There is no MovieInfo Available for the passed Id: " + movieId, 404));
+        }, meterRegistry);
+
+        for(int i = 0; i < 2; i++){
+            StepVerifier.create(movieInfoCache.get("abc"))
+                    .expectErrorMatches(ex -> ex instanceof MoviesInfoClientException
+                            && ((MoviesInfoClientException) ex).getStatusCode() == 404)
+                    .verify();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void otherErrorsAreNotCached(){
+        var movieInfoCache = new MovieInfoCache(config, movieId -> {
+            loads.incrementAndGet();
+            return Mono.error(new MoviesInfoClientException("Bad Request", 400));
+        }, meterRegistry);
+
+        for(int i = 0; i < 2; i++){
+            StepVerifier.create(movieInfoCache.get("abc"))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict(){
+        var movieInfoCache = new MovieInfoCache(config, movieId -> {
+            loads.incrementAndGet();
+            return Mono.just(movieInfo(movieId));
+        }, meterRegistry);
+
+        movieInfoCache.get("abc").block();
+        movieInfoCache.evict("abc");
+        movieInfoCache.get("abc").block();
+
+        assertEquals(2, loads.get());
+    }
+
+    private static MovieInfo movieInfo(String movieId){
+        return new MovieInfo(movieId, "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+    }
+}
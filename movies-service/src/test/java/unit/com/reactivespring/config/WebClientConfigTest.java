@@ -0,0 +1,26 @@
+package com.reactivespring.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebClientConfigTest {
+
+    @Test
+    void remoteHost(){
+        assertEquals(InetSocketAddress.createUnresolved("localhost", 5151), WebClientConfig.remoteHost("localhost:5151"));
+    }
+
+    @Test
+    void remoteHostWithoutPort(){
+        var ex = assertThrows(IllegalArgumentException.class, () -> WebClientConfig.remoteHost("localhost"));
+        assertEquals("restClient.hosts entry \"localhost\" must be host:port", ex.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> WebClientConfig.remoteHost("localhost:"));
+        assertThrows(IllegalArgumentException.class, () -> WebClientConfig.remoteHost("localhost:http"));
+        assertThrows(IllegalArgumentException.class, () -> WebClientConfig.remoteHost(":5151"));
+    }
+}
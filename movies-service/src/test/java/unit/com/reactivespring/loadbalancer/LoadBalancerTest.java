@@ -0,0 +1,211 @@
+package com.reactivespring.loadbalancer;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.NoAvailableEndpointException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoadBalancerTest {
+
+    static final List<String> URLS = List.of("http://movie-info-1/v1/movieInfos", "http://movie-info-2/v1/movieInfos",
+            "http://movie-info-3/v1/movieInfos");
+
+    AtomicLong nanoTime = new AtomicLong();
+    AtomicInteger ejections = new AtomicInteger();
+    RestClientProperties.LoadBalancer config;
+
+    @BeforeEach
+    void setUp(){
+        config = new RestClientProperties.LoadBalancer();
+        config.getOutlierDetection().setConsecutiveFailures(2);
+        config.getOutlierDetection().setBaseEjectionTime(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void roundRobin(){
+        var loadBalancer = loadBalancer(URLS);
+
+        Map<String, Integer> calls = new HashMap<>();
+        for(int i = 0; i < 30; i++){
+            calls.merge(loadBalancer.chooseUrl(), 1, Integer::sum);
+        }
+
+        assertEquals(Map.of(URLS.get(0), 10, URLS.get(1), 10, URLS.get(2), 10), calls);
+    }
+
+    @Test
+    void leastOutstandingRequests(){
+        config.setStrategy(LoadBalancingStrategy.Type.LEAST_OUTSTANDING_REQUESTS);
+        var loadBalancer = loadBalancer(URLS);
+
+        // two calls that never answer keep two instances busy
+        loadBalancer.execute(LoadBalancer.newTriedSet(), url -> Mono.never()).subscribe();
+        loadBalancer.execute(LoadBalancer.newTriedSet(), url -> Mono.never()).subscribe();
+        var idle = loadBalancer.getEndpoints().stream()
+                .filter(endpoint -> endpoint.getOutstanding() == 0)
+                .collect(Collectors.toList());
+
+        assertEquals(1, idle.size());
+        assertEquals(idle.get(0).getUrl(), loadBalancer.chooseUrl());
+    }
+
+    @Test
+    void powerOfTwoChoicesPrefersLowLatency(){
+        config.setStrategy(LoadBalancingStrategy.Type.P2C_EWMA);
+        var loadBalancer = loadBalancer(URLS.subList(0, 2));
+        var slow = loadBalancer.getEndpoints().get(0);
+        var fast = loadBalancer.getEndpoints().get(1);
+        slow.recordLatency(TimeUnit.MILLISECONDS.toNanos(500), 1, config.getEwmaDecay());
+        fast.recordLatency(TimeUnit.MILLISECONDS.toNanos(5), 1, config.getEwmaDecay());
+
+        for(int i = 0; i < 10; i++){
+            assertEquals(fast.getUrl(), loadBalancer.chooseUrl());
+        }
+    }
+
+    @Test
+    void powerOfTwoChoicesAvoidsFastFailures(){
+        config.setStrategy(LoadBalancingStrategy.Type.P2C_EWMA);
+        config.getOutlierDetection().setEnabled(false);
+        var loadBalancer = loadBalancer(URLS.subList(0, 2));
+        var healthy = loadBalancer.getEndpoints().get(0);
+        var failing = loadBalancer.getEndpoints().get(1);
+        healthy.recordLatency(TimeUnit.MILLISECONDS.toNanos(50), 1, config.getEwmaDecay());
+
+        var tried = LoadBalancer.newTriedSet();
+        tried.add(healthy);
+        // refused straight away, no time passes
+        loadBalancer.execute(tried, url -> Mono.<String>error(new MoviesInfoServerException("Connection refused")))
+                .onErrorResume(ex -> Mono.empty())
+                .block();
+
+        assertEquals(config.getFailurePenalty().toNanos(), failing.getLatencyEwmaNanos(), 1);
+        for(int i = 0; i < 10; i++){
+            assertEquals(healthy.getUrl(), loadBalancer.chooseUrl());
+        }
+    }
+
+    @Test
+    void triedInstancesAreAvoided(){
+        var loadBalancer = loadBalancer(URLS.subList(0, 2));
+        var tried = LoadBalancer.newTriedSet();
+
+        var first = loadBalancer.execute(tried, Mono::just).block();
+        var second = loadBalancer.execute(tried, Mono::just).block();
+        // every instance has been tried, so any of them will do again
+        var third = loadBalancer.execute(tried, Mono::just).block();
+
+        assertNotEquals(first, second);
+        assertEquals(Set.copyOf(URLS.subList(0, 2)), new HashSet<>(List.of(first, second, third)));
+    }
+
+    @Test
+    void failingInstanceIsEjected(){
+        var loadBalancer = loadBalancer(URLS);
+        var failing = URLS.get(0);
+
+        for(int i = 0; i < 6; i++){
+            loadBalancer.execute(LoadBalancer.newTriedSet(), url -> url.equals(failing)
+                            ? Mono.<String>error(new MoviesInfoServerException("Server Exception in MoviesInfoService"))
+                            : Mono.just(url))
+                    .onErrorResume(ex -> Mono.empty())
+                    .block();
+        }
+        assertEquals(1, ejections.get());
+        assertEquals(1, loadBalancer.getEjectedCount());
+        for(int i = 0; i < 10; i++){
+            assertNotEquals(failing, loadBalancer.chooseUrl());
+        }
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(0, loadBalancer.getEjectedCount());
+    }
+
+    @Test
+    void clientErrorsDoNotEject(){
+        var loadBalancer = loadBalancer(URLS.subList(0, 1));
+
+        for(int i = 0; i < 5; i++){
+            StepVerifier.create(loadBalancer.execute(LoadBalancer.newTriedSet(),
+                            url -> Mono.error(new MoviesInfoClientException("Bad Request", 400))))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        }
+
+        assertEquals(0, ejections.get());
+    }
+
+    @Test
+    void atMostMaxEjectionPercentIsEjected(){
+        var loadBalancer = loadBalancer(URLS.subList(0, 2));
+
+        for(int i = 0; i < 10; i++){
+            loadBalancer.execute(LoadBalancer.newTriedSet(),
+                    url -> Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService")))
+                    .onErrorResume(ex -> Mono.empty())
+                    .block();
+        }
+
+        assertEquals(1, loadBalancer.getEjectedCount());
+    }
+
+    @Test
+    void noInstances(){
+        var loadBalancer = loadBalancer(List.of());
+
+        StepVerifier.create(loadBalancer.execute(LoadBalancer.newTriedSet(), Mono::just))
+                .expectError(NoAvailableEndpointException.class)
+                .verify();
+        assertThrows(NoAvailableEndpointException.class, loadBalancer::chooseUrl);
+    }
+
+    @Test
+    void fileDiscovery(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("movie-info-endpoints.txt");
+        Files.write(file, List.of("# movie-info-service", URLS.get(0), "", URLS.get(1)));
+        var discovery = new EndpointDiscovery.File(file, Duration.ZERO);
+        var loadBalancer = new LoadBalancer("movieInfo", discovery, config,
+                ex -> ex instanceof MoviesInfoServerException, ejections::incrementAndGet, nanoTime::get);
+        var first = loadBalancer.getEndpoints().get(0);
+
+        assertEquals(URLS.subList(0, 2), discovery.getUrls());
+
+        Files.write(file, List.of(URLS.get(0), URLS.get(2)));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        loadBalancer.chooseUrl();
+
+        assertEquals(List.of(URLS.get(0), URLS.get(2)), loadBalancer.getEndpoints().stream()
+                .map(Endpoint::getUrl).collect(Collectors.toList()));
+        // what was learned about an instance survives the refresh
+        assertEquals(first, loadBalancer.getEndpoints().get(0));
+    }
+
+    private LoadBalancer loadBalancer(List<String> urls){
+        return new LoadBalancer("movieInfo", new EndpointDiscovery.Static(urls), config,
+                ex -> ex instanceof MoviesInfoServerException, ejections::incrementAndGet, nanoTime::get);
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.exception.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkheadTest {
+
+    Bulkhead bulkhead = new Bulkhead("reviews", 2);
+
+    @Test
+    void rejectsCallsOverTheLimit(){
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        bulkhead.protect(first.asMono()).subscribe();
+        bulkhead.protect(second.asMono()).subscribe();
+
+        StepVerifier.create(bulkhead.protect(Mono.just("review")))
+                .expectError(BulkheadFullException.class)
+                .verify();
+
+        first.tryEmitValue("review");
+        assertEquals(1, bulkhead.getAvailableConcurrentCalls());
+
+        StepVerifier.create(bulkhead.protect(Mono.just("review")))
+                .expectNext("review")
+                .verifyComplete();
+    }
+
+    @Test
+    void releasesOnErrorAndCancel(){
+        StepVerifier.create(bulkhead.protect(Mono.error(new IllegalStateException())))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(bulkhead.protect(Mono.never()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(2, bulkhead.getAvailableConcurrentCalls());
+    }
+}
@@ -0,0 +1,150 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.CallNotPermittedException;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    AtomicLong nanoTime = new AtomicLong();
+    AtomicInteger calls = new AtomicInteger();
+    CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp(){
+        var config = new RestClientProperties.CircuitBreaker();
+        config.setSlidingWindowSize(4);
+        config.setMinimumNumberOfCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setWaitDurationInOpenState(Duration.ofSeconds(10));
+        config.setPermittedCallsInHalfOpenState(2);
+        circuitBreaker = new CircuitBreaker("reviews", config,
+                ex -> ex instanceof ReviewsServerException, nanoTime::get);
+    }
+
+    @Test
+    void opensAtFailureRateThreshold(){
+        succeed();
+        succeed();
+        fail();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        StepVerifier.create(circuitBreaker.protect(call(Mono.just("review"))))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures(){
+        fail();
+        fail();
+        fail();
+        succeed();
+        succeed();
+        succeed();
+        succeed();
+        succeed();
+
+        fail();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void clientErrorsDoNotCount(){
+        for(int i = 0; i < 4; i++){
+            StepVerifier.create(circuitBreaker.protect(call(Mono.error(new ReviewsClientException("Bad Request")))))
+                    .expectError(ReviewsClientException.class)
+                    .verify();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrialCalls(){
+        open();
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        succeed();
+        succeed();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenReopensOnFailure(){
+        open();
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        fail();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenLimitsTrialCalls(){
+        open();
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // trial calls still in flight
+        assertEquals(true, circuitBreaker.tryAcquirePermission());
+        assertEquals(true, circuitBreaker.tryAcquirePermission());
+        assertEquals(false, circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void cancelledTrialCallsGiveTheirPermitBack(){
+        open();
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        StepVerifier.create(circuitBreaker.protect(Mono.never()))
+                .thenCancel()
+                .verify();
+        StepVerifier.create(circuitBreaker.protect(Mono.never()))
+                .thenCancel()
+                .verify();
+
+        succeed();
+        succeed();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private void open(){
+        for(int i = 0; i < 4; i++){
+            fail();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void succeed(){
+        StepVerifier.create(circuitBreaker.protect(call(Mono.just("review"))))
+                .expectNext("review")
+                .verifyComplete();
+    }
+
+    private void fail(){
+        StepVerifier.create(circuitBreaker.protect(call(Mono.error(new ReviewsServerException("Server Exception in ReviewsService")))))
+                .expectError(ReviewsServerException.class)
+                .verify();
+    }
+
+    private <T> Mono<T> call(Mono<T> response){
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return response;
+        });
+    }
+}
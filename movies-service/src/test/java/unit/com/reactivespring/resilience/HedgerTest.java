@@ -0,0 +1,136 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgerTest {
+
+    SimpleMeterRegistry meterRegistry;
+    RestClientProperties.Hedging config;
+    AtomicInteger attempts;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        config = new RestClientProperties.Hedging();
+        config.setEnabled(true);
+        config.setInitialDelay(Duration.ofMillis(50));
+        config.setBudgetPercent(100);
+        attempts = new AtomicInteger();
+    }
+
+    @Test
+    void slowFirstAttemptIsHedged(){
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+        var firstCancelled = new AtomicBoolean();
+
+        var call = hedger.hedge(attempt -> {
+            attempts.incrementAndGet();
+            return attempt == 0
+                    ? Mono.just("first").delayElement(Duration.ofSeconds(5)).doOnCancel(() -> firstCancelled.set(true))
+                    : Mono.just("hedge");
+        });
+
+        StepVerifier.create(call)
+                .expectNext("hedge")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(2, attempts.get());
+        assertTrue(firstCancelled.get());
+        assertEquals(1.0, hedges("sent"));
+        assertEquals(1.0, hedges("won"));
+    }
+
+    @Test
+    void fastFirstAttemptIsNotHedged(){
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+
+        StepVerifier.create(hedger.hedge(attempt -> {
+                    attempts.incrementAndGet();
+                    return Mono.just("first");
+                }))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void failedHedgeWaitsForTheFirstAttempt(){
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+
+        var call = hedger.hedge(attempt -> attempt == 0
+                ? Mono.just("first").delayElement(Duration.ofMillis(200))
+                : Mono.<String>error(new MoviesInfoServerException("Server Exception in MoviesInfoService")));
+
+        StepVerifier.create(call)
+                .expectNext("first")
+                .verifyComplete();
+    }
+
+    @Test
+    void errorBeforeTheHedgeDelayIsNotHedged(){
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+
+        StepVerifier.create(hedger.hedge(attempt -> {
+                    attempts.incrementAndGet();
+                    return Mono.<String>error(new MoviesInfoServerException("Server Exception in MoviesInfoService"));
+                }))
+                .expectError(MoviesInfoServerException.class)
+                .verify();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedgesAreLimitedByTheBudget(){
+        config.setBudgetPercent(50);
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+
+        // two calls earn a single hedge
+        for(int i = 0; i < 2; i++){
+            StepVerifier.create(hedger.hedge(attempt -> {
+                        attempts.incrementAndGet();
+                        return Mono.just("movieInfo").delayElement(Duration.ofMillis(150));
+                    }))
+                    .expectNext("movieInfo")
+                    .verifyComplete();
+        }
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, hedges("sent"));
+        assertEquals(1.0, hedges("budget_exhausted"));
+    }
+
+    @Test
+    void delayFollowsTheLatencyPercentile(){
+        config.setMinSamples(10);
+        config.setWindowSize(10);
+        config.setPercentile(90);
+        var hedger = new Hedger("movieInfo", config, meterRegistry);
+        assertEquals(Duration.ofMillis(50), hedger.getDelay());
+
+        var latencyTracker = new LatencyTracker(10, 90);
+        for(int i = 1; i <= 10; i++){
+            latencyTracker.record(Duration.ofMillis(i * 10));
+        }
+        assertEquals(Duration.ofMillis(90), latencyTracker.getPercentile());
+    }
+
+    private double hedges(String outcome){
+        return meterRegistry.get("movies.client.hedges").tag("client", "movieInfo").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,59 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.config.RestClientProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    AtomicLong nanoTime = new AtomicLong();
+    RestClientProperties.Retry.Budget config;
+
+    @BeforeEach
+    void setUp(){
+        config = new RestClientProperties.Retry.Budget();
+        config.setPercent(10);
+        config.setMinRetriesPerSecond(0);
+        config.setMaxTokens(2);
+    }
+
+    @Test
+    void retriesAreAPercentageOfCalls(){
+        var retryBudget = new RetryBudget(config, nanoTime::get);
+        assertFalse(retryBudget.tryWithdraw());
+
+        for(int i = 0; i < 10; i++){
+            retryBudget.deposit();
+        }
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    void tokensAreCapped(){
+        var retryBudget = new RetryBudget(config, nanoTime::get);
+        for(int i = 0; i < 1000; i++){
+            retryBudget.deposit();
+        }
+        assertEquals(2.0, retryBudget.getAvailableTokens(), 0.0001);
+    }
+
+    @Test
+    void minRetriesPerSecondRefillOverTime(){
+        config.setMinRetriesPerSecond(1);
+        var retryBudget = new RetryBudget(config, nanoTime::get);
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+}
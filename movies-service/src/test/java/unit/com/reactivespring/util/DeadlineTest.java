@@ -0,0 +1,43 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+class DeadlineTest {
+
+    @Test
+    void monoTimesOutAtTheDeadline(){
+        var call = Mono.just("movieInfo").delayElement(Duration.ofSeconds(5))
+                .transform(Deadline::timeout)
+                .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(Duration.ofMillis(50))));
+
+        StepVerifier.create(call)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void fluxDeadlineCoversTheWholeStream(){
+        // every element arrives well within the deadline, the stream as a whole doesn't
+        var call = Flux.interval(Duration.ofMillis(20)).take(50)
+                .transform(Deadline::timeout)
+                .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(Duration.ofMillis(200))));
+
+        StepVerifier.create(call)
+                .thenConsumeWhile(element -> true)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void noDeadlineNoTimeout(){
+        StepVerifier.create(Mono.just("movieInfo").delayElement(Duration.ofMillis(100)).transform(Deadline::timeout))
+                .expectNext("movieInfo")
+                .verifyComplete();
+    }
+}
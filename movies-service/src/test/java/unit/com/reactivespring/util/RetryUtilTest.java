@@ -0,0 +1,118 @@
+package com.reactivespring.util;
+
+import com.reactivespring.config.RestClientProperties;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryUtilTest {
+
+    SimpleMeterRegistry meterRegistry;
+    RestClientProperties restClientProperties;
+    AtomicInteger calls;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        restClientProperties = new RestClientProperties();
+        restClientProperties.getRetry().setMinBackoff(Duration.ofMillis(1));
+        restClientProperties.getRetry().setMaxBackoff(Duration.ofMillis(5));
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void retriesServerErrorsUpToMaxRetries(){
+        var retryUtil = new RetryUtil(restClientProperties, meterRegistry);
+
+        StepVerifier.create(failingCall(new ReviewsServerException("Review Service Unavailable"))
+                        .retryWhen(retryUtil.retrySpec("reviews")))
+                .expectError(ReviewsServerException.class)
+                .verify();
+
+        assertEquals(4, calls.get());
+        assertEquals(3.0, retries("retried"));
+        assertEquals(1.0, retries("exhausted"));
+    }
+
+    @Test
+    void clientErrorsAreNotRetried(){
+        var retryUtil = new RetryUtil(restClientProperties, meterRegistry);
+
+        StepVerifier.create(failingCall(new ReviewsClientException("Bad Request"))
+                        .retryWhen(retryUtil.retrySpec("reviews")))
+                .expectError(ReviewsClientException.class)
+                .verify();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void retriesStopWhenBudgetIsExhausted(){
+        var budget = restClientProperties.getRetry().getBudget();
+        budget.setPercent(50);
+        budget.setMinRetriesPerSecond(0);
+        var retryUtil = new RetryUtil(restClientProperties, meterRegistry);
+
+        // two calls earn a single retry
+        retryUtil.retrySpec("reviews").generateCompanion(Flux.empty());
+        StepVerifier.create(failingCall(new ReviewsServerException("Review Service Unavailable"))
+                        .retryWhen(retryUtil.retrySpec("reviews")))
+                .expectError(ReviewsServerException.class)
+                .verify();
+
+        assertEquals(2, calls.get());
+        assertEquals(1.0, retries("retried"));
+        assertEquals(1.0, retries("budget_exhausted"));
+    }
+
+    @Test
+    void noRetryPastTheDeadline(){
+        var retryUtil = new RetryUtil(restClientProperties, meterRegistry);
+
+        StepVerifier.create(failingCall(new ReviewsServerException("Review Service Unavailable"))
+                        .retryWhen(retryUtil.retrySpec("reviews"))
+                        .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(Duration.ZERO))))
+                .expectError(ReviewsServerException.class)
+                .verify();
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, retries("deadline"));
+    }
+
+    @Test
+    void backoffIsJitteredAndCapped(){
+        restClientProperties.getRetry().setMinBackoff(Duration.ofMillis(100));
+        restClientProperties.getRetry().setMaxBackoff(Duration.ofSeconds(1));
+        var retryUtil = new RetryUtil(restClientProperties, meterRegistry);
+
+        for(int retry = 0; retry < 40; retry++){
+            long ceiling = Math.min(1000, 100L << Math.min(retry, 30));
+            for(int i = 0; i < 100; i++){
+                long backoff = retryUtil.backoff(retry).toMillis();
+                assertTrue(backoff >= 0 && backoff <= ceiling, "retry " + retry + " backed off " + backoff + "ms");
+            }
+        }
+    }
+
+    private Mono<String> failingCall(RuntimeException failure){
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(failure);
+        });
+    }
+
+    private double retries(String outcome){
+        return meterRegistry.get("movies.client.retries").tag("client", "reviews").tag("outcome", outcome).counter().count();
+    }
+}